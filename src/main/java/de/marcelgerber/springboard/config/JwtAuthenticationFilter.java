@@ -2,6 +2,7 @@ package de.marcelgerber.springboard.config;
 
 import de.marcelgerber.springboard.service.BlackListService;
 import de.marcelgerber.springboard.util.jwt.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,11 +22,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final HandlerExceptionResolver handlerExceptionResolver;
     private final BlackListService blackListService;
+    private final JwtUtil jwtUtil;
 
     public JwtAuthenticationFilter(final HandlerExceptionResolver handlerExceptionResolver,
-                                   final BlackListService blackListService) {
+                                   final BlackListService blackListService,
+                                   final JwtUtil jwtUtil) {
         this.handlerExceptionResolver = handlerExceptionResolver;
         this.blackListService = blackListService;
+        this.jwtUtil = jwtUtil;
     }
 
     @Override
@@ -40,15 +44,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 .findFirst()
                 .orElse(null);
 
-        if(token == null || blackListService.contains(token)) {
+        if(token == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
 
         try {
-            String playerId = JwtUtil.getSubject(token);
+            // Parsing verifies the signature and the expiration
+            Claims claims = jwtUtil.getClaims(token);
+            String playerId = claims.getSubject();
 
-            if(playerId == null || !JwtUtil.isTokenValid(token, playerId)) {
+            if(playerId == null || claims.getId() == null || blackListService.contains(claims.getId())) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
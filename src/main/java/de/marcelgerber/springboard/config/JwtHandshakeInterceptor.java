@@ -0,0 +1,79 @@
+package de.marcelgerber.springboard.config;
+
+import de.marcelgerber.springboard.service.BlackListService;
+import de.marcelgerber.springboard.util.jwt.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.Cookie;
+import lombok.NonNull;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Authenticates the WebSocket handshake with the JWT of the 'accessToken' cookie. Messages do not carry the token,
+ * the id and expiration of the token are kept with the session and checked again before every move
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String PLAYER_ID = "playerId";
+    public static final String TOKEN_ID = "tokenId";
+    public static final String TOKEN_EXPIRATION = "tokenExpiration";
+
+    private final BlackListService blackListService;
+    private final JwtUtil jwtUtil;
+
+    public JwtHandshakeInterceptor(final BlackListService blackListService, final JwtUtil jwtUtil) {
+        this.blackListService = blackListService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request,
+                                   @NonNull ServerHttpResponse response,
+                                   @NonNull WebSocketHandler wsHandler,
+                                   @NonNull Map<String, Object> attributes) {
+        if(!(request instanceof ServletServerHttpRequest servletRequest)) return false;
+
+        final String token = Arrays.stream(Optional.ofNullable(servletRequest.getServletRequest().getCookies())
+                        .orElse(new Cookie[0]))
+                .filter(cookie -> cookie.getName().equals("accessToken"))
+                .map(Cookie::getValue)
+                .findFirst()
+                .orElse(null);
+
+        try {
+            if(token == null) throw new IllegalArgumentException();
+
+            Claims claims = jwtUtil.getClaims(token);
+            String playerId = claims.getSubject();
+            if(playerId == null || claims.getId() == null || blackListService.contains(claims.getId())) {
+                throw new IllegalArgumentException();
+            }
+
+            attributes.put(PLAYER_ID, playerId);
+            attributes.put(TOKEN_ID, claims.getId());
+            attributes.put(TOKEN_EXPIRATION, claims.getExpiration());
+            return true;
+        } catch(Exception exception) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request,
+                               @NonNull ServerHttpResponse response,
+                               @NonNull WebSocketHandler wsHandler,
+                               Exception exception) {
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.marcelgerber.springboard.config;
+
+import de.marcelgerber.springboard.service.EventService;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Registers the metrics of classes that do not know about the MeterRegistry themselves.
+ * Counters are read from the classes when the metrics are scraped
+ */
+@Configuration
+public class MetricsConfig {
+
+    private final EventService eventService;
+
+    // One gauge per game with subscribers, rows of games without subscribers are removed on refresh
+    private final MultiGauge gameSubscribers;
+
+    public MetricsConfig(EventService eventService, MeterRegistry meterRegistry) {
+        this.eventService = eventService;
+
+        FunctionCounter.builder("springboard.board.legal-move-generations", Board.class,
+                        board -> Board.getLegalMoveGenerations())
+                .description("Legal move generations of all boards")
+                .register(meterRegistry);
+
+        Gauge.builder("springboard.sse.subscribers", eventService, EventService::getTotalSubscriberCount)
+                .description("Open event connections of all games and streams")
+                .register(meterRegistry);
+        Gauge.builder("springboard.sse.games", eventService, EventService::getSubscribedGameCount)
+                .description("Games with at least one subscriber")
+                .register(meterRegistry);
+        FunctionCounter.builder("springboard.sse.send-failures", eventService, EventService::getSendFailureCount)
+                .description("Event writes that failed because the connection was gone")
+                .register(meterRegistry);
+
+        this.gameSubscribers = MultiGauge.builder("springboard.sse.game.subscribers")
+                .description("Subscribers per game")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Updates the subscriber gauges of the games
+     */
+    @Scheduled(fixedDelayString = "${springboard.metrics.game-gauge-interval:15000}")
+    public void refreshGameSubscribers() {
+        gameSubscribers.register(eventService.getSubscriberCounts().entrySet().stream()
+                .map(entry -> MultiGauge.Row.of(Tags.of("gameId", entry.getKey()), entry.getValue()))
+                .toList(), true);
+    }
+
+}
@@ -0,0 +1,96 @@
+package de.marcelgerber.springboard.config;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.model.GameSnapshot;
+import de.marcelgerber.springboard.model.MoveEvent;
+import de.marcelgerber.springboard.model.Player;
+import de.marcelgerber.springboard.model.RevokedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the documents. Spring's automatic index creation is disabled by default
+ * and would block the startup until MongoDB is reachable, so the indexes are ensured in the background instead.
+ * Signups rely on the unique index on the username, the instance is not ready until it exists.
+ */
+@Slf4j
+@Configuration
+@Profile("!inmemory")
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Game.class, MoveEvent.class, GameSnapshot.class,
+            RevokedToken.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final long retryInterval;
+
+    private volatile boolean usernameIndexReady = false;
+    private volatile String usernameIndexError = "not created yet";
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate,
+                            @Value("${springboard.mongo.index-retry-interval:30000}") long retryInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Reports the unique index on the username, part of the readiness group
+     *
+     * @return HealthIndicator
+     */
+    @Bean
+    public HealthIndicator usernameIndexHealthIndicator() {
+        return () -> usernameIndexReady
+                ? Health.up().build()
+                : Health.down().withDetail("error", usernameIndexError).build();
+    }
+
+    /**
+     * Ensures all declared indexes once the application is ready. The unique index on the username is retried
+     * until it exists, e.g. after duplicate usernames have been removed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        Thread.ofVirtual().name("mongo-index-init").start(() -> {
+            IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                    mongoTemplate.getConverter().getMappingContext());
+
+            while(!usernameIndexReady) {
+                try {
+                    resolver.resolveIndexFor(Player.class).forEach(mongoTemplate.indexOps(Player.class)::ensureIndex);
+                    usernameIndexReady = true;
+                } catch(Exception e) {
+                    usernameIndexError = e.getMessage();
+                    log.error("Could not ensure the unique index on players.username, retrying in {} ms: {}",
+                            retryInterval, e.getMessage());
+                    try {
+                        Thread.sleep(retryInterval);
+                    } catch(InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+
+            for(Class<?> document : INDEXED_DOCUMENTS) {
+                try {
+                    resolver.resolveIndexFor(document).forEach(mongoTemplate.indexOps(document)::ensureIndex);
+                } catch(Exception e) {
+                    log.warn("Could not ensure indexes for {}: {}", document.getSimpleName(), e.getMessage());
+                }
+            }
+        });
+    }
+
+}
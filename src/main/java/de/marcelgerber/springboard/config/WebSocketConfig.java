@@ -0,0 +1,36 @@
+package de.marcelgerber.springboard.config;
+
+import de.marcelgerber.springboard.controller.GameWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.Arrays;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final GameWebSocketHandler gameWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    private final String[] allowedOrigins;
+
+    public WebSocketConfig(GameWebSocketHandler gameWebSocketHandler,
+                           JwtHandshakeInterceptor jwtHandshakeInterceptor,
+                           @Value("${springboard.websocket.allowed-origins:}") String[] allowedOrigins) {
+        this.gameWebSocketHandler = gameWebSocketHandler;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+        // The socket is authenticated by the cookie, so without configured origins only the own origin may open it
+        this.allowedOrigins = Arrays.stream(allowedOrigins).filter(origin -> !origin.isBlank()).toArray(String[]::new);
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameWebSocketHandler, "/api/ws")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+
+}
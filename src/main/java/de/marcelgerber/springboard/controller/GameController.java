@@ -2,8 +2,10 @@ package de.marcelgerber.springboard.controller;
 
 import de.marcelgerber.springboard.dto.request.CreateGameRequestDto;
 import de.marcelgerber.springboard.dto.request.PlayMoveRequestDto;
+import de.marcelgerber.springboard.dto.response.PositionResponseDto;
 import de.marcelgerber.springboard.service.GameService;
 import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.Board;
 import jakarta.validation.Valid;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -102,16 +104,46 @@ public class GameController {
         return ResponseEntity.ok(moves);
     }
 
+    /**
+     * GET /api/games/{gameId}/positions/{ply} <br>
+     * Retrieves the position of a specific game after the provided ply
+     *
+     * @param gameId String
+     * @param ply int
+     * @return ResponseEntity with PositionResponseDto
+     */
+    @GetMapping("/{gameId}/positions/{ply}")
+    public ResponseEntity<PositionResponseDto> getPosition(@PathVariable String gameId, @PathVariable int ply) {
+        Board board = gameService.getPositionAt(gameId, ply);
+        return ResponseEntity.ok(new PositionResponseDto(ply, board.getFen()));
+    }
+
+    /**
+     * GET /api/games/lobby/events <br>
+     * Subscribes to a Server-Sent-Event sending created, joined and finished games
+     *
+     * @param lastEventId id of the last received event, sent by the browser on reconnect
+     * @return SseEmitter
+     */
+    @GetMapping(path = "/lobby/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToLobbyEvents(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return gameService.subscribeToLobby(lastEventId);
+    }
+
     /**
      * GET /api/games/{gameId}/events <br>
-     * Subscribes to a Server-Sent-Event sending updates of a game
+     * Subscribes to a Server-Sent-Event sending updates of a game. Reconnecting clients get the missed events replayed
      *
      * @param gameId String
+     * @param lastEventId id of the last received event, sent by the browser on reconnect
+     * @param coalesce 'true' if moves queued for a slow client are sent as one 'moves' event
      * @return SseEmitter
      */
     @GetMapping(path = "/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribeToGameEvents(@PathVariable String gameId) {
-        return gameService.subscribeToEvents(gameId);
+    public SseEmitter subscribeToGameEvents(@PathVariable String gameId,
+                                            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+                                            @RequestParam(defaultValue = "false") boolean coalesce) {
+        return gameService.subscribeToEvents(gameId, lastEventId, coalesce);
     }
 
 }
@@ -0,0 +1,144 @@
+package de.marcelgerber.springboard.controller;
+
+import de.marcelgerber.springboard.config.JwtHandshakeInterceptor;
+import de.marcelgerber.springboard.exception.BadRequestException;
+import de.marcelgerber.springboard.exception.NotFoundException;
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.service.BlackListService;
+import de.marcelgerber.springboard.service.EventService;
+import de.marcelgerber.springboard.service.GameService;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * WebSocket endpoint for playing and following games on one connection. Every text frame is one command:
+ * <ul>
+ *     <li>subscribe {gameId} [lastEventId]</li>
+ *     <li>unsubscribe {gameId}</li>
+ *     <li>move {gameId} {move}</li>
+ * </ul>
+ * Commands are answered with 'ok {gameId} ...' or 'error {gameId} {message}', events of the followed games
+ * are sent as '{event} {gameId} {id} {data}'. The session is closed on a move once its token has expired
+ * or has been revoked
+ */
+@Slf4j
+@Component
+public class GameWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String STREAM_ID = "streamId";
+    private static final String SESSION = "session";
+
+    // A slow client is disconnected when a send blocks for 10 seconds or 512 KB are buffered
+    private static final int SEND_TIME_LIMIT = 10000;
+    private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    // Closes sessions whose token is no longer valid
+    private static final CloseStatus TOKEN_INVALID = CloseStatus.POLICY_VIOLATION.withReason("Token expired or revoked");
+
+    private final GameService gameService;
+    private final EventService eventService;
+    private final BlackListService blackListService;
+
+    public GameWebSocketHandler(GameService gameService, EventService eventService,
+                                BlackListService blackListService) {
+        this.gameService = gameService;
+        this.eventService = eventService;
+        this.blackListService = blackListService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, BUFFER_SIZE_LIMIT);
+
+        session.getAttributes().put(SESSION, concurrentSession);
+        session.getAttributes().put(STREAM_ID, eventService.openStream(concurrentSession));
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, TextMessage message) throws IOException {
+        WebSocketSession concurrentSession = (WebSocketSession) session.getAttributes().get(SESSION);
+        String streamId = (String) session.getAttributes().get(STREAM_ID);
+        String playerId = (String) session.getAttributes().get(JwtHandshakeInterceptor.PLAYER_ID);
+
+        String[] command = message.getPayload().trim().split("\\s+");
+        String gameId = command.length > 1 ? command[1] : "-";
+
+        // Moves act on behalf of the player, so the token must still be valid
+        if(command[0].equals("move") && !isTokenValid(session)) {
+            session.close(TOKEN_INVALID);
+            return;
+        }
+
+        try {
+            String reply = switch(command[0]) {
+                case "subscribe" -> {
+                    Long lastEventId = command.length > 2 ? parseEventId(command[2]) : null;
+                    gameService.followGame(streamId, gameId, lastEventId);
+                    yield "ok " + gameId + " subscribed";
+                }
+                case "unsubscribe" -> {
+                    gameService.unfollowGame(streamId, gameId);
+                    yield "ok " + gameId + " unsubscribed";
+                }
+                case "move" -> {
+                    if(command.length != 3) throw new BadRequestException("Expected: move {gameId} {move}");
+                    Game game = gameService.playMove(playerId, gameId, command[2]);
+                    yield "ok " + gameId + " " + game.getMoves().size();
+                }
+                default -> throw new BadRequestException("Unknown command: " + command[0]);
+            };
+            concurrentSession.sendMessage(new TextMessage(reply));
+        } catch(BadRequestException | NotFoundException e) {
+            concurrentSession.sendMessage(new TextMessage("error " + gameId + " " + e.getMessage()));
+        } catch(RuntimeException e) {
+            // Any other error only fails this command, the socket and its subscriptions stay open
+            log.error("WebSocket command '{}' failed", command[0], e);
+            concurrentSession.sendMessage(new TextMessage("error " + gameId + " Internal server error"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        String streamId = (String) session.getAttributes().get(STREAM_ID);
+        if(streamId != null) eventService.closeStream(streamId);
+    }
+
+    /**
+     * Returns 'true' if the token the session has been opened with has neither expired nor been revoked
+     *
+     * @param session WebSocketSession
+     * @return boolean
+     */
+    private boolean isTokenValid(WebSocketSession session) {
+        Date expiration = (Date) session.getAttributes().get(JwtHandshakeInterceptor.TOKEN_EXPIRATION);
+        String tokenId = (String) session.getAttributes().get(JwtHandshakeInterceptor.TOKEN_ID);
+
+        if(expiration == null || expiration.before(new Date())) return false;
+        return tokenId != null && !blackListService.contains(tokenId);
+    }
+
+    /**
+     * Parses the id of the last received event
+     *
+     * @param value String
+     * @return Long
+     */
+    private static Long parseEventId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch(NumberFormatException e) {
+            throw new BadRequestException("Invalid event id: " + value);
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package de.marcelgerber.springboard.controller;
 import de.marcelgerber.springboard.dto.response.ErrorResponseDto;
 import de.marcelgerber.springboard.exception.BadRequestException;
 import de.marcelgerber.springboard.exception.NotFoundException;
+import de.marcelgerber.springboard.exception.TooManyRequestsException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import org.springframework.http.HttpHeaders;
@@ -67,6 +68,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Method for handling TooManyRequestsException
+     *
+     * @param e TooManyRequestsException
+     * @return ResponseEntity with ErrorResponse
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponseDto> handleTooManyRequests(TooManyRequestsException e) {
+        ErrorResponseDto errorResponse = new ErrorResponseDto(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(errorResponse);
+    }
+
     /**
      * Method for handling SignatureException
      *
@@ -56,14 +56,16 @@ public class PlayerController {
 
     /**
      * POST /api/players/signup <br>
-     * Register a new player
+     * Register a new player. The address of the client is taken from X-Forwarded-For when the request
+     * comes from a trusted proxy, see 'server.forward-headers-strategy'
      *
      * @return ResponseEntity with PlayerDocument
      */
     @PostMapping("/signup")
-    public ResponseEntity<Player> signupPlayer(@Valid @RequestBody PlayerRequestDto playerRequestDto) {
+    public ResponseEntity<Player> signupPlayer(@Valid @RequestBody PlayerRequestDto playerRequestDto,
+                                               HttpServletRequest request) {
         Player player = playerService.signupPlayer(playerRequestDto.getUsername(),
-                playerRequestDto.getPassword());
+                playerRequestDto.getPassword(), request.getRemoteAddr());
         return ResponseEntity.ok(player);
     }
 
@@ -75,8 +77,10 @@ public class PlayerController {
      */
     @PostMapping("/login")
     public ResponseEntity<LoginResponseDto> loginPlayer(@Valid @RequestBody PlayerRequestDto playerRequestDto,
+                                                        HttpServletRequest request,
                                                         HttpServletResponse response) {
-        Map<String, Player> map = playerService.loginPlayer(playerRequestDto.getUsername(), playerRequestDto.getPassword());
+        Map<String, Player> map = playerService.loginPlayer(playerRequestDto.getUsername(), playerRequestDto.getPassword(),
+                request.getRemoteAddr());
         Map.Entry<String, Player> entry = map.entrySet().iterator().next();
 
         ResponseCookie cookie = ResponseCookie.from("accessToken", entry.getKey())
@@ -0,0 +1,51 @@
+package de.marcelgerber.springboard.controller;
+
+import de.marcelgerber.springboard.dto.request.StreamRequestDto;
+import de.marcelgerber.springboard.service.GameService;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/streams")
+public class StreamController {
+
+    private final GameService gameService;
+
+    public StreamController(GameService gameService) {
+        this.gameService = gameService;
+    }
+
+    /**
+     * GET /api/streams?gameIds=... <br>
+     * Subscribes to a Server-Sent-Event stream sending updates of several games on one connection
+     *
+     * @param gameIds List of gameIds
+     * @param coalesce 'true' if moves queued for a slow client are sent as one 'moves' event
+     * @return SseEmitter
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToGames(@RequestParam(defaultValue = "") List<String> gameIds,
+                                       @RequestParam(defaultValue = "false") boolean coalesce) {
+        return gameService.subscribeToStream(gameIds, coalesce);
+    }
+
+    /**
+     * PUT /api/streams/{streamId} <br>
+     * Replaces the games followed by a stream
+     *
+     * @param streamId String
+     * @return ResponseEntity without body
+     */
+    @PutMapping("/{streamId}")
+    public ResponseEntity<Void> updateStream(@PathVariable String streamId,
+                                             @Valid @RequestBody StreamRequestDto streamRequestDto) {
+        gameService.updateStream(streamId, streamRequestDto.getGameIds());
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -0,0 +1,14 @@
+package de.marcelgerber.springboard.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StreamRequestDto {
+
+    @NotNull(message = "Key 'gameIds' is required")
+    List<String> gameIds;
+
+}
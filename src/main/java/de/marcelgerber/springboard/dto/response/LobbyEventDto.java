@@ -0,0 +1,26 @@
+package de.marcelgerber.springboard.dto.response;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.model.Player;
+import de.marcelgerber.springboard.util.chesslogic.GameState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LobbyEventDto {
+
+    private String gameId;
+    private GameState state;
+    private String playerWhite;
+    private String playerBlack;
+
+    public LobbyEventDto(Game game) {
+        this(game.getId(), game.getState(), username(game.getPlayerWhite()), username(game.getPlayerBlack()));
+    }
+
+    private static String username(Player player) {
+        return player == null ? null : player.getUsername();
+    }
+
+}
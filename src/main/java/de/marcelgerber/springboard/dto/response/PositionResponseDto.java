@@ -0,0 +1,13 @@
+package de.marcelgerber.springboard.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PositionResponseDto {
+
+    private int ply;
+    private String fen;
+
+}
@@ -0,0 +1,8 @@
+package de.marcelgerber.springboard.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package de.marcelgerber.springboard.model;
+
+import de.marcelgerber.springboard.util.chesslogic.GameState;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Represents a finished chess game in the archive of a MongoDB database. The FEN-String is not stored,
+ * since it can be rebuilt from the moves
+ */
+@Document("archivedGames")
+@Data
+public class ArchivedGame {
+
+    @Id
+    private String id;
+    private GameState state;
+
+    @DBRef
+    private Player playerWhite;
+
+    @DBRef
+    private Player playerBlack;
+
+    // Moves encoded and compressed with MoveListCodec
+    private byte[] moves;
+    private Instant archivedAt;
+
+    protected ArchivedGame() { }
+
+    public ArchivedGame(Game game, byte[] moves) {
+        this.id = game.getId();
+        this.state = game.getState();
+        this.playerWhite = game.getPlayerWhite();
+        this.playerBlack = game.getPlayerBlack();
+        this.moves = moves;
+        this.archivedAt = Instant.now();
+    }
+
+}
@@ -6,13 +6,16 @@ import de.marcelgerber.springboard.util.chesslogic.GameState;
 import de.marcelgerber.springboard.util.chesslogic.*;
 import de.marcelgerber.springboard.util.chesslogic.pieces.Piece;
 import de.marcelgerber.springboard.util.chesslogic.pieces.PieceType;
+import de.marcelgerber.springboard.util.jfr.MoveValidationEvent;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a chess game in a MongoDB database
@@ -24,6 +27,8 @@ public class Game {
     @Id
     private String id;
     private String fen;
+
+    @Indexed
     private GameState state;
 
     @DBRef
@@ -40,6 +45,16 @@ public class Game {
 
     protected Game() { }
 
+    // Copy constructor, the board is not copied
+    public Game(Game game) {
+        this.id = game.id;
+        this.fen = game.fen;
+        this.state = game.state;
+        this.playerWhite = game.playerWhite;
+        this.playerBlack = game.playerBlack;
+        this.moves = new ArrayList<>(game.moves);
+    }
+
     public Game(Color color, Player player) {
         this.fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
         this.state = GameState.WAITING_FOR_PLAYER_TO_JOIN;
@@ -56,17 +71,123 @@ public class Game {
      * Plays the move on the board and updates the Game
      *
      * @param sMove String-move
+     * @return the played Move
      */
-    public void playMove(String sMove) {
+    public Move playMove(String sMove) {
+        Move move = validateMove(sMove);
+        applyMove(move);
+        return move;
+    }
+
+    /**
+     * Converts the String-move into a Move and checks that it is legal in the current position
+     *
+     * @param sMove String-move
+     * @return the legal Move
+     */
+    public Move validateMove(String sMove) {
+        MoveValidationEvent event = new MoveValidationEvent();
+        event.begin();
+
         // Convert String-move to Move
         Move move = convertMove(sMove);
         if(move == null) throw new BadRequestException("Could not convert move: " + sMove);
-        if(!isMoveLegal(move)) throw new BadRequestException("Illegal move: " + move.toPureCoordinateNotation());
 
+        List<Move> legalMoves = this.board.getLegalMoves();
+        boolean legal = legalMoves.contains(move);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.fen = this.fen;
+            event.move = sMove;
+            event.legalMoveCount = legalMoves.size();
+            event.legal = legal;
+            event.commit();
+        }
+
+        if(!legal) throw new BadRequestException("Illegal move: " + move.toPureCoordinateNotation());
+        return move;
+    }
+
+    /**
+     * Plays an already validated move on the board and updates the Game
+     *
+     * @param move Move
+     */
+    public void applyMove(Move move) {
         // Make move on board and update Games' FEN-String and moves-list
         this.board.makeMove(move);
         this.fen = this.board.getFen();
         this.moves.add(move.toPureCoordinateNotation());
+
+        updateState();
+    }
+
+    /**
+     * Updates the GameState if the game has ended with the last move
+     */
+    private void updateState() {
+        if(this.board.getLegalMoves().isEmpty()) {
+            if(!this.board.isInCheck()) {
+                this.state = GameState.DRAW_BY_STALEMATE;
+            } else {
+                this.state = this.board.getSideToMove() == Color.WHITE ? GameState.WIN_BLACK : GameState.WIN_WHITE;
+            }
+        }
+        else if(this.board.getHalfMoveCounter() >= 100) {
+            this.state = GameState.DRAW_BY_50_MOVE_RULE;
+        }
+        else if(this.board.hasInsufficientMaterial()) {
+            this.state = GameState.DRAW_BY_INSUFFICIENT_MATERIAL;
+        }
+    }
+
+    /**
+     * Returns the position after the provided ply by replaying the String-moves from the start
+     *
+     * @param ply int
+     * @return Board
+     */
+    public Board replayMoves(int ply) {
+        Board position = new Board();
+        position.setStandardPosition();
+
+        for(String sMove : this.moves.subList(0, ply)) {
+            Move legal = position.findLegalMove(sMove);
+            if(legal == null) break;
+            position.makeMove(legal);
+        }
+        return position;
+    }
+
+    /**
+     * Restores a game from its moves. The FEN-String is rebuilt by replaying them
+     *
+     * @param id String
+     * @param state GameState
+     * @param playerWhite Player
+     * @param playerBlack Player
+     * @param moves List of Moves
+     * @return Game
+     */
+    public static Game fromMoves(String id, GameState state, Player playerWhite, Player playerBlack,
+                                 List<Move> moves) {
+        Game game = new Game();
+        game.id = id;
+        game.state = state;
+        game.playerWhite = playerWhite;
+        game.playerBlack = playerBlack;
+        game.moves = new ArrayList<>();
+
+        Board position = new Board();
+        position.setStandardPosition();
+
+        for(Move move : moves) {
+            position.makeMove(move);
+            game.moves.add(move.toPureCoordinateNotation());
+        }
+        game.fen = position.getFen();
+        return game;
     }
 
     /**
@@ -115,19 +236,6 @@ public class Game {
         return null;
     }
 
-    /**
-     * Returns 'true' when the provided move is a legal move
-     *
-     * @param move Move
-     * @return boolean
-     */
-    private boolean isMoveLegal(Move move) {
-        for(Move legal : this.board.getLegalMoves()) {
-            if(move.equals(legal)) return true;
-        }
-        return false;
-    }
-
     /**
      * Sets the player who is joining the game
      *
@@ -0,0 +1,34 @@
+package de.marcelgerber.springboard.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Represents a binary snapshot of a games' position after a specific ply in a MongoDB database
+ */
+@Document("gameSnapshots")
+@CompoundIndex(name = "gameId_ply", def = "{'gameId': 1, 'ply': -1}", unique = true)
+@Data
+public class GameSnapshot {
+
+    @Id
+    private String id;
+    private String gameId;
+    private int ply;
+
+    // Position encoded with Board.toBinary()
+    private byte[] position;
+    private long hash;
+
+    protected GameSnapshot() { }
+
+    public GameSnapshot(String gameId, int ply, byte[] position, long hash) {
+        this.gameId = gameId;
+        this.ply = ply;
+        this.position = position;
+        this.hash = hash;
+    }
+
+}
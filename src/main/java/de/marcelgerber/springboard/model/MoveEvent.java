@@ -0,0 +1,34 @@
+package de.marcelgerber.springboard.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Represents a single move of a game in the append-only move log in a MongoDB database
+ */
+@Document("moveEvents")
+@CompoundIndex(name = "gameId_ply", def = "{'gameId': 1, 'ply': 1}", unique = true)
+@Data
+public class MoveEvent {
+
+    @Id
+    private String id;
+    private String gameId;
+
+    // Number of half moves played after this move, starting with 1 for the first move
+    private int ply;
+    private String move;
+    private short encodedMove;
+
+    protected MoveEvent() { }
+
+    public MoveEvent(String gameId, int ply, String move, short encodedMove) {
+        this.gameId = gameId;
+        this.ply = ply;
+        this.move = move;
+        this.encodedMove = encodedMove;
+    }
+
+}
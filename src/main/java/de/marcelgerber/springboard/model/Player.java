@@ -3,6 +3,7 @@ package de.marcelgerber.springboard.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -14,6 +15,8 @@ public class Player {
 
     @Id
     private String id;
+
+    @Indexed(unique = true)
     private String username;
 
     @JsonIgnore
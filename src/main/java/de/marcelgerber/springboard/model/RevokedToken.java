@@ -0,0 +1,36 @@
+package de.marcelgerber.springboard.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents a revoked JWT in a MongoDB database. MongoDB removes it once the token has expired
+ */
+@Document("revokedTokens")
+@Data
+public class RevokedToken {
+
+    // Id of the JWT ('jti')
+    @Id
+    private String id;
+
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+
+    // Set by the database, so revocations of all instances share one clock
+    @Indexed
+    private Date revokedAt;
+
+    protected RevokedToken() { }
+
+    public RevokedToken(String id, Date expiresAt, Date revokedAt) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+}
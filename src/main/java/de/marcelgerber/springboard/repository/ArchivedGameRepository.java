@@ -0,0 +1,10 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.ArchivedGame;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedGameRepository extends MongoRepository<ArchivedGame, String> {
+
+}
@@ -0,0 +1,220 @@
+package de.marcelgerber.springboard.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Class for group-committing writes. Writes of all requests are collected for a short window
+ * and written with one unordered bulkWrite per collection. Every request waits for its own batch.
+ */
+@Slf4j
+@Component
+public class BatchWriter {
+
+    private record PendingWrite(String collection, Object id, WriteModel<Document> model,
+                                CompletableFuture<Void> future) { }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<PendingWrite> writeQueue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public BatchWriter(MongoTemplate mongoTemplate,
+                             @Value("${springboard.batch-write.enabled:false}") boolean enabled,
+                             @Value("${springboard.batch-write.window:2}") long window,
+                             @Value("${springboard.batch-write.max-size:500}") int maxBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(window);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Starts the background writer
+     */
+    @PostConstruct
+    public void start() {
+        if(!enabled) return;
+
+        running = true;
+        writerThread = Thread.ofPlatform().name("batch-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Saves the entity with the next batch. The entity is converted immediately, so later changes
+     * are not part of this write. If batching is disabled, the entity is saved synchronously
+     *
+     * @param entity Document class instance
+     * @return CompletableFuture completing once the batch has been acknowledged
+     */
+    public CompletableFuture<Void> save(Object entity) {
+        if(!enabled) {
+            mongoTemplate.save(entity);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+
+        Object id = document.get("_id");
+        WriteModel<Document> model = id == null
+                ? new InsertOneModel<>(document)
+                : new ReplaceOneModel<>(Filters.eq("_id", id), document, new ReplaceOptions().upsert(true));
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        writeQueue.add(new PendingWrite(mongoTemplate.getCollectionName(entity.getClass()), id, model, future));
+        return future;
+    }
+
+    /**
+     * Saves the entity with the next batch and waits until the batch has been acknowledged
+     *
+     * @param entity Document class instance
+     */
+    public void saveAndWait(Object entity) {
+        await(save(entity));
+    }
+
+    /**
+     * Waits for a write and rethrows its exception
+     *
+     * @param future CompletableFuture returned by save()
+     */
+    public static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Collects writes until the window has passed or the batch is full and writes them
+     */
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+
+        while(running || !writeQueue.isEmpty()) {
+            try {
+                PendingWrite first = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while(batch.size() < maxBatchSize) {
+                    PendingWrite next = writeQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(next == null) break;
+                    batch.add(next);
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch with one unordered bulkWrite per collection and completes the futures
+     *
+     * @param batch List of PendingWrites
+     */
+    private void write(List<PendingWrite> batch) {
+        Map<String, List<PendingWrite>> collections = new LinkedHashMap<>();
+        batch.forEach(pendingWrite ->
+                collections.computeIfAbsent(pendingWrite.collection(), key -> new ArrayList<>()).add(pendingWrite));
+
+        collections.forEach(this::bulkWrite);
+    }
+
+    /**
+     * Writes all pending writes of a collection. Writes of the same document are merged into the latest one,
+     * so the order inside the unordered bulkWrite does not matter
+     *
+     * @param collection String
+     * @param pendingWrites List of PendingWrites
+     */
+    private void bulkWrite(String collection, List<PendingWrite> pendingWrites) {
+        Map<Object, List<PendingWrite>> writesById = new LinkedHashMap<>();
+        List<WriteModel<Document>> models = new ArrayList<>();
+
+        for(PendingWrite pendingWrite : pendingWrites) {
+            Object key = pendingWrite.id() != null ? pendingWrite.id() : new Object();
+            writesById.computeIfAbsent(key, k -> new ArrayList<>()).add(pendingWrite);
+        }
+        writesById.values().forEach(writes -> models.add(writes.getLast().model()));
+
+        List<List<PendingWrite>> writesByIndex = new ArrayList<>(writesById.values());
+
+        try {
+            mongoTemplate.getCollection(collection).bulkWrite(models, new BulkWriteOptions().ordered(false));
+            pendingWrites.forEach(pendingWrite -> pendingWrite.future().complete(null));
+        } catch(MongoBulkWriteException e) {
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+            e.getWriteErrors().forEach(error -> errors.put(error.getIndex(), error));
+
+            for(int index = 0; index < writesByIndex.size(); index++) {
+                BulkWriteError error = errors.get(index);
+                RuntimeException exception = error == null ? null : translate(error, e);
+
+                for(PendingWrite pendingWrite : writesByIndex.get(index)) {
+                    if(exception == null) pendingWrite.future().complete(null);
+                    else pendingWrite.future().completeExceptionally(exception);
+                }
+            }
+        } catch(RuntimeException e) {
+            log.warn("Bulk write of {} documents into {} failed: {}", models.size(), collection, e.getMessage());
+            DataAccessException translated = mongoTemplate.getExceptionTranslator().translateExceptionIfPossible(e);
+            RuntimeException exception = translated != null ? translated : e;
+            pendingWrites.forEach(pendingWrite -> pendingWrite.future().completeExceptionally(exception));
+        }
+    }
+
+    /**
+     * Translates a single error of a bulkWrite into Springs' exception hierarchy
+     *
+     * @param error BulkWriteError
+     * @param cause MongoBulkWriteException
+     * @return DataAccessException
+     */
+    private DataAccessException translate(BulkWriteError error, MongoBulkWriteException cause) {
+        if(ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+            return new DuplicateKeyException(error.getMessage(), cause);
+        }
+        return new UncategorizedMongoDbException(error.getMessage(), cause);
+    }
+
+    /**
+     * Writes the remaining batch and stops the background writer
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(!enabled) return;
+
+        running = false;
+        writerThread.join(5000);
+    }
+
+}
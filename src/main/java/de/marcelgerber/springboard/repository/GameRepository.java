@@ -1,10 +1,25 @@
 package de.marcelgerber.springboard.repository;
 
 import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.GameState;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface GameRepository extends MongoRepository<Game, String> {
 
+    /**
+     * Finds games which are in one of the provided states, except the games with the provided ids
+     *
+     * @param states Collection of GameStates
+     * @param ids Collection of ids to leave out
+     * @param pageable Pageable
+     * @return List of Games
+     */
+    List<Game> findByStateInAndIdNotIn(Collection<GameState> states, Collection<String> ids, Pageable pageable);
+
 }
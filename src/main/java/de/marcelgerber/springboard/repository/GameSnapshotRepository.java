@@ -0,0 +1,28 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.GameSnapshot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GameSnapshotRepository extends MongoRepository<GameSnapshot, String> {
+
+    /**
+     * Finds the latest snapshot of a game taken at or before the provided ply
+     *
+     * @param gameId String
+     * @param ply int
+     * @return GameSnapshot if present
+     */
+    Optional<GameSnapshot> findFirstByGameIdAndPlyLessThanEqualOrderByPlyDesc(String gameId, int ply);
+
+    /**
+     * Deletes all snapshots of a game
+     *
+     * @param gameId String
+     */
+    void deleteByGameId(String gameId);
+
+}
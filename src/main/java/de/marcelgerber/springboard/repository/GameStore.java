@@ -0,0 +1,72 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of games used by the services. MongoDB is the default implementation,
+ * the profile 'inmemory' selects an implementation without any database
+ */
+public interface GameStore {
+
+    /**
+     * Finds a game by id
+     *
+     * @param id String
+     * @return Game if present
+     */
+    Optional<Game> findById(String id);
+
+    /**
+     * Returns 'true' when a game with the provided id exists
+     *
+     * @param id String
+     * @return boolean
+     */
+    boolean existsById(String id);
+
+    /**
+     * Returns all games
+     *
+     * @return List of Games
+     */
+    List<Game> findAll();
+
+    /**
+     * Stores a new game and returns it with its generated id
+     *
+     * @param game Game
+     * @return Game
+     */
+    Game create(Game game);
+
+    /**
+     * Stores the current state of an existing game
+     *
+     * @param game Game
+     */
+    void save(Game game);
+
+    /**
+     * Stores the current state of a game together with the move that has just been played
+     *
+     * @param game Game
+     * @param ply Number of half moves played after this move
+     * @param move Move
+     */
+    void saveMove(Game game, int ply, Move move);
+
+    /**
+     * Returns the position of a game after the provided ply, if it can be rebuilt from the stored moves
+     *
+     * @param id String
+     * @param ply int
+     * @return Board if present
+     */
+    Optional<Board> findPositionAt(String id, int ply);
+
+}
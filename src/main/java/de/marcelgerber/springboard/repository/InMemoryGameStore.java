@@ -0,0 +1,71 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GameStore keeping all games in memory. Like a database, it stores copies, so every read
+ * returns a new Game which has to initialize its board again
+ */
+@Component
+@Profile("inmemory")
+public class InMemoryGameStore implements GameStore {
+
+    private final ConcurrentHashMap<String, Game> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<Move>> moveLogs = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Game> findById(String id) {
+        return Optional.ofNullable(games.get(id)).map(Game::new);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return games.containsKey(id);
+    }
+
+    @Override
+    public List<Game> findAll() {
+        return games.values().stream().map(Game::new).toList();
+    }
+
+    @Override
+    public Game create(Game game) {
+        game.setId(new ObjectId().toHexString());
+        games.put(game.getId(), new Game(game));
+        return game;
+    }
+
+    @Override
+    public void save(Game game) {
+        games.put(game.getId(), new Game(game));
+    }
+
+    @Override
+    public void saveMove(Game game, int ply, Move move) {
+        save(game);
+        moveLogs.computeIfAbsent(game.getId(), id -> Collections.synchronizedList(new ArrayList<>())).add(move);
+    }
+
+    @Override
+    public Optional<Board> findPositionAt(String id, int ply) {
+        List<Move> moves = moveLogs.getOrDefault(id, Collections.emptyList());
+
+        synchronized(moves) {
+            if(moves.size() < ply) return Optional.empty();
+
+            Board board = new Board();
+            board.setStandardPosition();
+            moves.subList(0, ply).forEach(board::makeMove);
+            return Optional.of(board);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Player;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PlayerStore keeping all players in memory
+ */
+@Component
+@Profile("inmemory")
+public class InMemoryPlayerStore implements PlayerStore {
+
+    private final ConcurrentHashMap<String, Player> playersById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Player> playersByUsername = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Player> findById(String id) {
+        return Optional.ofNullable(playersById.get(id));
+    }
+
+    @Override
+    public Optional<Player> findByUsername(String username) {
+        return Optional.ofNullable(playersByUsername.get(username));
+    }
+
+    @Override
+    public List<Player> findAll() {
+        return List.copyOf(playersById.values());
+    }
+
+    @Override
+    public Player save(Player player) {
+        if(player.getId() == null) player.setId(new ObjectId().toHexString());
+
+        playersById.put(player.getId(), player);
+        playersByUsername.put(player.getUsername(), player);
+        return player;
+    }
+
+    @Override
+    public Player insert(Player player) {
+        if(player.getId() == null) player.setId(new ObjectId().toHexString());
+
+        if(playersByUsername.putIfAbsent(player.getUsername(), player) != null) {
+            throw new DuplicateKeyException("Username already exists: " + player.getUsername());
+        }
+        playersById.put(player.getId(), player);
+        return player;
+    }
+
+}
@@ -0,0 +1,35 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.RevokedToken;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RevokedTokenStore keeping all revoked tokens in memory
+ */
+@Component
+@Profile("inmemory")
+public class InMemoryRevokedTokenStore implements RevokedTokenStore {
+
+    private final ConcurrentHashMap<String, RevokedToken> revokedTokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(String tokenId, Date expiration) {
+        Date now = new Date();
+        revokedTokens.values().removeIf(token -> token.getExpiresAt().before(now));
+        revokedTokens.put(tokenId, new RevokedToken(tokenId, expiration, now));
+    }
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Date since) {
+        Date now = new Date();
+        return revokedTokens.values().stream()
+                .filter(token -> !token.getRevokedAt().before(since) && token.getExpiresAt().after(now))
+                .toList();
+    }
+
+}
@@ -0,0 +1,89 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import de.marcelgerber.springboard.util.chesslogic.MoveListCodec;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GameStore backed by MongoDB, including the archive, batched writes and the move log
+ */
+@Component
+@Profile("!inmemory")
+public class MongoGameStore implements GameStore {
+
+    private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final BatchWriter batchWriter;
+    private final MoveLogStore moveLogStore;
+
+    public MongoGameStore(GameRepository gameRepository,
+                          ArchivedGameRepository archivedGameRepository,
+                          BatchWriter batchWriter,
+                          MoveLogStore moveLogStore) {
+        this.gameRepository = gameRepository;
+        this.archivedGameRepository = archivedGameRepository;
+        this.batchWriter = batchWriter;
+        this.moveLogStore = moveLogStore;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        return gameRepository.findById(id).or(() -> findArchivedById(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return gameRepository.existsById(id) || archivedGameRepository.existsById(id);
+    }
+
+    @Override
+    public List<Game> findAll() {
+        return gameRepository.findAll();
+    }
+
+    @Override
+    public Game create(Game game) {
+        return gameRepository.save(game);
+    }
+
+    @Override
+    public void save(Game game) {
+        batchWriter.saveAndWait(game);
+    }
+
+    @Override
+    public void saveMove(Game game, int ply, Move move) {
+        // With batched writes the game and its move event are written with the same batch
+        CompletableFuture<Void> saved = batchWriter.save(game);
+        moveLogStore.append(game.getId(), ply, move);
+        BatchWriter.await(saved);
+    }
+
+    @Override
+    public Optional<Board> findPositionAt(String id, int ply) {
+        return moveLogStore.getPositionAt(id, ply);
+    }
+
+    /**
+     * Finds an archived game by id and restores it
+     *
+     * @param id String
+     * @return Game if present
+     */
+    private Optional<Game> findArchivedById(String id) {
+        return archivedGameRepository.findById(id).map(archivedGame -> Game.fromMoves(
+                archivedGame.getId(),
+                archivedGame.getState(),
+                archivedGame.getPlayerWhite(),
+                archivedGame.getPlayerBlack(),
+                MoveListCodec.decode(archivedGame.getMoves())));
+    }
+
+}
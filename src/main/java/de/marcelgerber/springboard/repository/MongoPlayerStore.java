@@ -0,0 +1,49 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Player;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * PlayerStore backed by MongoDB
+ */
+@Component
+@Profile("!inmemory")
+public class MongoPlayerStore implements PlayerStore {
+
+    private final PlayerRepository playerRepository;
+
+    public MongoPlayerStore(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    @Override
+    public Optional<Player> findById(String id) {
+        return playerRepository.findById(id);
+    }
+
+    @Override
+    public Optional<Player> findByUsername(String username) {
+        return playerRepository.findByUsername(username);
+    }
+
+    @Override
+    public List<Player> findAll() {
+        return playerRepository.findAll();
+    }
+
+    @Override
+    public Player save(Player player) {
+        return playerRepository.save(player);
+    }
+
+    @Override
+    public Player insert(Player player) {
+        // The unique index on the username rejects duplicates
+        return playerRepository.insert(player);
+    }
+
+}
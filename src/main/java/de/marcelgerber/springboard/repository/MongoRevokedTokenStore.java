@@ -0,0 +1,41 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.RevokedToken;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * RevokedTokenStore backed by a MongoDB collection with a TTL index on the expiration
+ */
+@Component
+@Profile("!inmemory")
+public class MongoRevokedTokenStore implements RevokedTokenStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoRevokedTokenStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void save(String tokenId, Date expiration) {
+        Query query = Query.query(Criteria.where("_id").is(tokenId));
+        Update update = new Update().set("expiresAt", expiration).currentDate("revokedAt");
+        mongoTemplate.upsert(query, update, RevokedToken.class);
+    }
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Date since) {
+        Query query = Query.query(Criteria.where("revokedAt").gte(since).and("expiresAt").gt(new Date()));
+        query.fields().include("expiresAt", "revokedAt");
+        return mongoTemplate.find(query, RevokedToken.class);
+    }
+
+}
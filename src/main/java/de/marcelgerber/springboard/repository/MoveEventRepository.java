@@ -0,0 +1,31 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.MoveEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MoveEventRepository extends MongoRepository<MoveEvent, String> {
+
+    /**
+     * Finds all move events of a game with fromPly < ply <= toPly, sorted by ply
+     *
+     * @param gameId String
+     * @param fromPly int (exclusive)
+     * @param toPly int (inclusive)
+     * @return List of MoveEvents
+     */
+    @Query(value = "{ 'gameId': ?0, 'ply': { $gt: ?1, $lte: ?2 } }", sort = "{ 'ply': 1 }")
+    List<MoveEvent> findPlyRange(String gameId, int fromPly, int toPly);
+
+    /**
+     * Deletes all move events of a game
+     *
+     * @param gameId String
+     */
+    void deleteByGameId(String gameId);
+
+}
@@ -0,0 +1,99 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.GameSnapshot;
+import de.marcelgerber.springboard.model.MoveEvent;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Class for handling the append-only move log of games. Every move is stored as a single event and
+ * every 'snapshotInterval' plies a binary snapshot of the position is taken, so any position can be
+ * reconstructed by replaying at most 'snapshotInterval' moves.
+ */
+@Component
+public class MoveLogStore {
+
+    private final MoveEventRepository moveEventRepository;
+    private final GameSnapshotRepository gameSnapshotRepository;
+    private final BatchWriter batchWriter;
+    private final int snapshotInterval;
+
+    public MoveLogStore(MoveEventRepository moveEventRepository,
+                          GameSnapshotRepository gameSnapshotRepository,
+                          BatchWriter batchWriter,
+                          @Value("${springboard.move-log.snapshot-interval:16}") int snapshotInterval) {
+        this.moveEventRepository = moveEventRepository;
+        this.gameSnapshotRepository = gameSnapshotRepository;
+        this.batchWriter = batchWriter;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Appends a played move to the move log of a game and takes a snapshot if needed
+     *
+     * @param gameId String
+     * @param ply Number of half moves played after this move
+     * @param move Move
+     */
+    public void append(String gameId, int ply, Move move) {
+        batchWriter.saveAndWait(new MoveEvent(gameId, ply, move.toPureCoordinateNotation(), move.encode()));
+
+        if(ply % snapshotInterval != 0) return;
+
+        // Snapshots are taken rarely, so the position is rebuilt from the log instead of passing a Board around
+        getPositionAt(gameId, ply).ifPresent(board ->
+                gameSnapshotRepository.save(new GameSnapshot(gameId, ply, board.toBinary(), board.getHash())));
+    }
+
+    /**
+     * Returns the position of a game after the provided ply by replaying the moves after the latest snapshot.
+     * Returns an empty Optional if the move log of the game is incomplete
+     *
+     * @param gameId String
+     * @param ply int
+     * @return Board if the move log is complete
+     */
+    public Optional<Board> getPositionAt(String gameId, int ply) {
+        Board board = new Board();
+        int snapshotPly = 0;
+
+        Optional<GameSnapshot> snapshot =
+                gameSnapshotRepository.findFirstByGameIdAndPlyLessThanEqualOrderByPlyDesc(gameId, ply);
+
+        if(snapshot.isPresent() && isSnapshotValid(board, snapshot.get())) {
+            snapshotPly = snapshot.get().getPly();
+        } else {
+            board.setStandardPosition();
+        }
+
+        List<MoveEvent> moveEvents = moveEventRepository.findPlyRange(gameId, snapshotPly, ply);
+        if(moveEvents.size() != ply - snapshotPly) return Optional.empty();
+
+        for(MoveEvent moveEvent : moveEvents) {
+            board.makeMove(Move.decode(moveEvent.getEncodedMove()));
+        }
+        return Optional.of(board);
+    }
+
+    /**
+     * Loads the snapshot into the board and returns 'true' if its hash matches the loaded position
+     *
+     * @param board Board
+     * @param snapshot GameSnapshot
+     * @return boolean
+     */
+    private boolean isSnapshotValid(Board board, GameSnapshot snapshot) {
+        try {
+            board.setBinary(snapshot.getPosition());
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+        return board.getHash() == snapshot.getHash();
+    }
+
+}
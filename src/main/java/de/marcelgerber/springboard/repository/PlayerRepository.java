@@ -17,12 +17,4 @@ public interface PlayerRepository extends MongoRepository<Player, String> {
      */
     Optional<Player> findByUsername(String username);
 
-    /**
-     * Returns 'true' when a player with the provided username exists
-     *
-     * @param username String
-     * @return boolean
-     */
-    boolean existsByUsername(String username);
-
 }
@@ -0,0 +1,54 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.Player;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of players used by the services. MongoDB is the default implementation,
+ * the profile 'inmemory' selects an implementation without any database
+ */
+public interface PlayerStore {
+
+    /**
+     * Finds a player by id
+     *
+     * @param id String
+     * @return Player if present
+     */
+    Optional<Player> findById(String id);
+
+    /**
+     * Finds a player by username
+     *
+     * @param username String
+     * @return Player if present
+     */
+    Optional<Player> findByUsername(String username);
+
+    /**
+     * Returns all players
+     *
+     * @return List of Players
+     */
+    List<Player> findAll();
+
+    /**
+     * Stores a player and returns it with its generated id
+     *
+     * @param player Player
+     * @return Player
+     */
+    Player save(Player player);
+
+    /**
+     * Stores a new player and returns it with its generated id. Throws a DuplicateKeyException
+     * if the username is already taken
+     *
+     * @param player Player
+     * @return Player
+     */
+    Player insert(Player player);
+
+}
@@ -0,0 +1,30 @@
+package de.marcelgerber.springboard.repository;
+
+import de.marcelgerber.springboard.model.RevokedToken;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Storage of revoked JWTs shared by all instances. MongoDB is the default implementation,
+ * the profile 'inmemory' selects an implementation without any database
+ */
+public interface RevokedTokenStore {
+
+    /**
+     * Stores a revoked token until it expires
+     *
+     * @param tokenId id of the JWT
+     * @param expiration Date the JWT expires
+     */
+    void save(String tokenId, Date expiration);
+
+    /**
+     * Returns all tokens, which have been revoked at or after 'since' and have not expired yet
+     *
+     * @param since Date
+     * @return List of RevokedTokens
+     */
+    List<RevokedToken> findRevokedSince(Date since);
+
+}
@@ -0,0 +1,132 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.model.ArchivedGame;
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.repository.ArchivedGameRepository;
+import de.marcelgerber.springboard.repository.GameRepository;
+import de.marcelgerber.springboard.repository.GameSnapshotRepository;
+import de.marcelgerber.springboard.repository.MoveEventRepository;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.GameState;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import de.marcelgerber.springboard.util.chesslogic.MoveListCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Class for moving finished games out of the 'games' collection into a compact archive
+ */
+@Slf4j
+@Service
+public class ArchiveService {
+
+    private static final List<GameState> FINISHED_STATES = Arrays.stream(GameState.values())
+            .filter(GameState::isFinished)
+            .toList();
+
+    private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final MoveEventRepository moveEventRepository;
+    private final GameSnapshotRepository gameSnapshotRepository;
+
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ArchiveService(GameRepository gameRepository,
+                          ArchivedGameRepository archivedGameRepository,
+                          MoveEventRepository moveEventRepository,
+                          GameSnapshotRepository gameSnapshotRepository,
+                          @Value("${springboard.archive.enabled:true}") boolean enabled,
+                          @Value("${springboard.archive.batch-size:500}") int batchSize) {
+        this.gameRepository = gameRepository;
+        this.archivedGameRepository = archivedGameRepository;
+        this.moveEventRepository = moveEventRepository;
+        this.gameSnapshotRepository = gameSnapshotRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archives finished games in batches until none are left. A game that cannot be archived is logged
+     * and left out for the rest of the run, so it does not block the games behind it
+     */
+    @Scheduled(initialDelayString = "${springboard.archive.interval:600000}",
+               fixedDelayString = "${springboard.archive.interval:600000}")
+    public void archiveFinishedGames() {
+        if(!enabled) return;
+
+        Set<String> failed = new HashSet<>();
+        try {
+            List<Game> games;
+            do {
+                // Every game of a batch is either archived or left out of the next query, so each batch is new
+                games = gameRepository.findByStateInAndIdNotIn(FINISHED_STATES, failed, PageRequest.of(0, batchSize));
+                for(Game game : games) {
+                    if(!tryArchive(game)) failed.add(game.getId());
+                }
+            } while(games.size() == batchSize);
+        } catch(DataAccessException e) {
+            log.warn("Archiving finished games failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archives a game and logs why it cannot be archived. Errors of the database end the run
+     *
+     * @param game Game
+     * @return 'true' if the game has been archived
+     */
+    private boolean tryArchive(Game game) {
+        try {
+            archive(game);
+            return true;
+        } catch(DataAccessException e) {
+            throw e;
+        } catch(RuntimeException e) {
+            log.error("Cannot archive game {}", game.getId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Moves a finished game into the archive. The archived game is written first, so a game
+     * is never lost if archiving is interrupted
+     *
+     * @param game Game
+     */
+    public void archive(Game game) {
+        archivedGameRepository.save(new ArchivedGame(game, MoveListCodec.encode(toMoves(game))));
+
+        moveEventRepository.deleteByGameId(game.getId());
+        gameSnapshotRepository.deleteByGameId(game.getId());
+        gameRepository.deleteById(game.getId());
+    }
+
+    /**
+     * Converts the String-moves of a game into Moves by replaying them
+     *
+     * @param game Game
+     * @return List of Moves
+     */
+    private List<Move> toMoves(Game game) {
+        Board board = new Board();
+        board.setStandardPosition();
+        List<Move> moves = new ArrayList<>(game.getMoves().size());
+
+        for(String sMove : game.getMoves()) {
+            Move move = board.findLegalMove(sMove);
+            if(move == null) throw new IllegalStateException("Illegal move " + sMove + " in game " + game.getId());
+
+            board.makeMove(move);
+            moves.add(move);
+        }
+        return moves;
+    }
+
+}
@@ -1,31 +1,163 @@
 package de.marcelgerber.springboard.service;
 
+import de.marcelgerber.springboard.model.RevokedToken;
+import de.marcelgerber.springboard.repository.RevokedTokenStore;
+import de.marcelgerber.springboard.util.bloom.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Class for revoking JWTs before they expire. Tokens are identified by their id ('jti') and
+ * only kept until their expiration, after that they are rejected anyway. Revocations are stored
+ * in the RevokedTokenStore shared by all instances and polled into the local black list, so
+ * requests are checked in memory
+ */
+@Slf4j
 @Service
 public class BlackListService {
 
-    private final ArrayList<String> blackList = new ArrayList<>();
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    // Revocations stored concurrently by other instances may carry a slightly older time than the
+    // last poll, so every poll looks back this far. Tokens seen twice are simply added again
+    private static final long POLL_OVERLAP_MS = 5000;
+
+    private final RevokedTokenStore revokedTokenStore;
+    private final long pollInterval;
+
+    private Date lastPoll = new Date(0);
+    private volatile boolean running;
+    private Thread pollThread;
+
+    // Token id -> expiration in milliseconds
+    private final ConcurrentHashMap<String, Long> blackList = new ConcurrentHashMap<>();
+
+    private final int expectedTokens;
+
+    // Answers most lookups of tokens that are not on the black list without touching the map.
+    // Replaced on every sweep, so removed tokens do not fill it up
+    private volatile BloomFilter bloomFilter;
+
+    public BlackListService(RevokedTokenStore revokedTokenStore,
+                            @Value("${springboard.blacklist.expected-tokens:100000}") int expectedTokens,
+                            @Value("${springboard.blacklist.poll-interval:1000}") long pollInterval) {
+        this.revokedTokenStore = revokedTokenStore;
+        this.expectedTokens = expectedTokens;
+        this.pollInterval = pollInterval;
+        this.bloomFilter = new BloomFilter(expectedTokens, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Starts polling the revocations of all instances. Nothing blocks the startup if MongoDB is not reachable yet
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        pollThread = Thread.ofPlatform().name("blacklist-poll").daemon().start(this::pollLoop);
+    }
+
+    /**
+     * Revokes a JWT on all instances. It is rejected by this instance immediately and by the others
+     * after their next poll
+     *
+     * @param tokenId id of the JWT
+     * @param expiration Date the JWT expires
+     */
+    public void revokeToken(String tokenId, Date expiration) {
+        revokedTokenStore.save(tokenId, expiration);
+        addToken(tokenId, expiration);
+    }
 
     /**
-     * Adds a JWT to the black list
+     * Adds a JWT to the black list until it expires
      *
-     * @param token JWT as String
+     * @param tokenId id of the JWT
+     * @param expiration Date the JWT expires
      */
-    public void addToken(String token) {
-        blackList.add(token);
+    public synchronized void addToken(String tokenId, Date expiration) {
+        blackList.put(tokenId, expiration.getTime());
+        bloomFilter.add(tokenId);
     }
 
     /**
-     * Returns 'true' if the provided JWT is on the black list
+     * Returns 'true' if the JWT with the provided id is on the black list
      *
-     * @param token JWT as String
+     * @param tokenId id of the JWT
      * @return boolean
      */
-    public boolean contains(String token) {
-        return blackList.contains(token);
+    public boolean contains(String tokenId) {
+        if(!bloomFilter.mightContain(tokenId)) return false;
+        return blackList.containsKey(tokenId);
+    }
+
+    /**
+     * Returns the number of tokens on the black list
+     *
+     * @return int
+     */
+    public int size() {
+        return blackList.size();
+    }
+
+    /**
+     * Removes expired tokens and rebuilds the Bloom filter from the remaining ones
+     */
+    @Scheduled(fixedDelayString = "${springboard.blacklist.sweep-interval:60000}")
+    public synchronized void removeExpiredTokens() {
+        long now = System.currentTimeMillis();
+        blackList.values().removeIf(expiration -> expiration < now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2 * blackList.size()), FALSE_POSITIVE_PROBABILITY);
+        blackList.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+    }
+
+    /**
+     * Adds the tokens revoked since the last poll to the black list. The first poll loads all revoked tokens
+     */
+    public void poll() {
+        Date since = lastPoll;
+        for(RevokedToken token : revokedTokenStore.findRevokedSince(since)) {
+            addToken(token.getId(), token.getExpiresAt());
+            if(token.getRevokedAt().after(since)) since = token.getRevokedAt();
+        }
+        lastPoll = new Date(Math.max(lastPoll.getTime(), since.getTime() - POLL_OVERLAP_MS));
+    }
+
+    /**
+     * Polls the store every 'pollInterval' ms until the application stops
+     */
+    private void pollLoop() {
+        while(running) {
+            try {
+                poll();
+            } catch(RuntimeException e) {
+                log.warn("Polling revoked tokens failed, retrying: {}", e.getMessage());
+            }
+
+            try {
+                Thread.sleep(pollInterval);
+            } catch(InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops polling
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        pollThread.interrupt();
+        pollThread.join(5000);
     }
 
 }
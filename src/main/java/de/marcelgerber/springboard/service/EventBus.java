@@ -0,0 +1,38 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Broadcast of game events to all instances of the application. Every instance publishes its events once
+ * and delivers received events to its own subscribers. The in-process bus is the default,
+ * 'springboard.events.bus=mongo' selects a bus shared via MongoDB
+ */
+public interface EventBus {
+
+    /**
+     * Publishes an event of a channel to all instances, including this one
+     *
+     * @param channel gameId or the lobby
+     * @param event ServerSentEvent
+     */
+    void publish(String channel, ServerSentEvent event);
+
+    /**
+     * Registers the listener receiving the events of all instances
+     *
+     * @param listener BiConsumer of channel and ServerSentEvent
+     */
+    void subscribe(BiConsumer<String, ServerSentEvent> listener);
+
+    /**
+     * Returns the next event id of a channel without ids of its own (e.g. the lobby).
+     * Ids are unique and increasing across all instances
+     *
+     * @param channel String
+     * @return long
+     */
+    long nextEventId(String channel);
+
+}
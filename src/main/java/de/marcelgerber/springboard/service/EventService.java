@@ -1,34 +1,232 @@
 package de.marcelgerber.springboard.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.marcelgerber.springboard.dto.response.LobbyEventDto;
+import de.marcelgerber.springboard.exception.BadRequestException;
+import de.marcelgerber.springboard.util.jfr.EventBroadcastEvent;
+import de.marcelgerber.springboard.util.sse.EventHistory;
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import de.marcelgerber.springboard.util.sse.SlowConsumerPolicy;
+import de.marcelgerber.springboard.util.sse.SseSubscriber;
+import de.marcelgerber.springboard.util.sse.Subscriber;
+import de.marcelgerber.springboard.util.sse.WebSocketSubscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Class for handling Server-Sent-Events
+ * Class for handling Server-Sent-Events. Events are queued per subscriber and written by virtual threads,
+ * so publishing an event never blocks the request thread
  */
+@Slf4j
 @Service
 public class EventService {
 
-    private final ConcurrentHashMap<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    /**
+     * Subscriber following several games on one connection, over SSE or WebSocket
+     */
+    private static class Stream {
+        private final Subscriber subscriber;
+
+        // Guarded by 'this'
+        private final Set<String> gameIds = new HashSet<>();
+        private boolean closed = false;
+
+        private Stream(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+
+    // Key of the lobby channel in the registry, game ids are ObjectIds and never collide with it
+    private static final String LOBBY = "lobby";
+
+    // Entries are only created and removed inside compute(), so an empty set is never left behind
+    // and a subscriber is never added to a set that has just been removed
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // All open connections, a stream is one connection regardless of the number of games it follows
+    private final Set<Subscriber> connections = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Stream> streams = new ConcurrentHashMap<>();
+
+    // Writes that failed because the connection was gone
+    private final LongAdder sendFailures = new LongAdder();
+
+    // Lobby events of this instance are published in the order of their ids
+    private final Object lobbyLock = new Object();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Recent events per game. Publishing and replaying synchronize on the history of the game,
+    // so a reconnecting subscriber neither misses nor duplicates an event
+    private final ConcurrentHashMap<String, EventHistory> histories = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    // One thread for the heartbeats of all subscribers, the writes themselves run on the dispatcher
+    private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-heartbeat").daemon().factory());
+
+    private final EventBus eventBus;
+    private final int queueCapacity;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int replayBufferSize;
+    private final long replayRetentionNanos;
+    private final long timeout;
+    private final long heartbeatInterval;
+    private final int maxStreamGames;
+
+    public EventService(EventBus eventBus,
+                        @Value("${springboard.sse.queue-capacity:32}") int queueCapacity,
+                        @Value("${springboard.sse.slow-consumer-policy:COALESCE}") SlowConsumerPolicy slowConsumerPolicy,
+                        @Value("${springboard.sse.replay-buffer:64}") int replayBufferSize,
+                        @Value("${springboard.sse.replay-retention:600000}") long replayRetention,
+                        @Value("${springboard.sse.timeout:0}") long timeout,
+                        @Value("${springboard.sse.heartbeat-interval:15000}") long heartbeatInterval,
+                        @Value("${springboard.sse.max-stream-games:100}") int maxStreamGames) {
+        this.eventBus = eventBus;
+        this.queueCapacity = queueCapacity;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.replayBufferSize = replayBufferSize;
+        this.replayRetentionNanos = TimeUnit.MILLISECONDS.toNanos(replayRetention);
+        this.timeout = timeout;
+        this.heartbeatInterval = heartbeatInterval;
+        this.maxStreamGames = maxStreamGames;
+
+        eventBus.subscribe(this::deliver);
+    }
+
+    /**
+     * Starts sending heartbeats
+     */
+    @PostConstruct
+    public void start() {
+        if(heartbeatInterval <= 0) return;
+
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatInterval, heartbeatInterval,
+                TimeUnit.MILLISECONDS);
+    }
 
     /**
-     * Removes an emitter from the HashMap
+     * Adds a subscriber to the registry
      *
      * @param gameId String
-     * @param emitter SseEmitter
+     * @param subscriber Subscriber
      */
-    private void removeEmitter(String gameId, SseEmitter emitter) {
-        List<SseEmitter> emitterList = subscribers.get(gameId);
-        emitterList.remove(emitter);
+    private void addSubscriber(String gameId, Subscriber subscriber) {
+        subscribers.compute(gameId, (key, gameSubscribers) -> {
+            if(gameSubscribers == null) gameSubscribers = ConcurrentHashMap.newKeySet();
+            gameSubscribers.add(subscriber);
+            return gameSubscribers;
+        });
+    }
 
-        if(emitterList.isEmpty()) {
-            subscribers.remove(gameId);
-        }
+    /**
+     * Removes a subscriber from the registry. The entry of the game is removed together with its last subscriber
+     *
+     * @param gameId String
+     * @param subscriber Subscriber
+     */
+    private void removeSubscriber(String gameId, Subscriber subscriber) {
+        subscribers.computeIfPresent(gameId, (key, gameSubscribers) -> {
+            gameSubscribers.remove(subscriber);
+            return gameSubscribers.isEmpty() ? null : gameSubscribers;
+        });
+    }
+
+    /**
+     * Adds an open connection
+     *
+     * @param subscriber Subscriber
+     */
+    private void addConnection(Subscriber subscriber) {
+        subscriber.onWriteFailure(sendFailures::increment);
+        connections.add(subscriber);
+    }
+
+    /**
+     * Closes a subscriber of a single game and removes it from the registry.
+     * Completion, timeout and error can all be reported for the same subscriber
+     *
+     * @param gameId String
+     * @param subscriber Subscriber
+     */
+    private void closeSubscriber(String gameId, Subscriber subscriber) {
+        subscriber.close();
+        removeSubscriber(gameId, subscriber);
+        connections.remove(subscriber);
+    }
+
+    /**
+     * Returns the number of subscribers of the game with 'gameId'
+     *
+     * @param gameId String
+     * @return int
+     */
+    public int getSubscriberCount(String gameId) {
+        Set<Subscriber> gameSubscribers = subscribers.get(gameId);
+        return gameSubscribers == null ? 0 : gameSubscribers.size();
+    }
+
+    /**
+     * Returns the number of open connections of all games, including streams
+     *
+     * @return int
+     */
+    public int getTotalSubscriberCount() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of open streams following several games
+     *
+     * @return int
+     */
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * Returns the number of games with at least one subscriber
+     *
+     * @return int
+     */
+    public int getSubscribedGameCount() {
+        return subscribers.containsKey(LOBBY) ? subscribers.size() - 1 : subscribers.size();
+    }
+
+    /**
+     * Returns the number of subscribers per game, without the lobby
+     *
+     * @return Map of gameId and number of subscribers
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        subscribers.forEach((gameId, gameSubscribers) -> {
+            if(!gameId.equals(LOBBY)) counts.put(gameId, gameSubscribers.size());
+        });
+        return counts;
+    }
+
+    /**
+     * Returns the number of writes that failed because the connection was gone
+     *
+     * @return long
+     */
+    public long getSendFailureCount() {
+        return sendFailures.sum();
     }
 
     /**
@@ -38,38 +236,240 @@ public class EventService {
      * @return SseEmitter
      */
     public SseEmitter createEmitter(final String gameId) {
-        // Set timeout to 300.000 ms = 5 minutes
-        SseEmitter emitter = new SseEmitter(300000L);
+        return createEmitter(gameId, null, false);
+    }
 
-        emitter.onCompletion(() -> removeEmitter(gameId, emitter));
-        emitter.onTimeout(() -> removeEmitter(gameId, emitter));
-        emitter.onError((error) -> removeEmitter(gameId, emitter));
+    /**
+     * Creates an SseEmitter and replays all events after the event with 'lastEventId'
+     *
+     * @param gameId String
+     * @param lastEventId id of the last event the client has received or null
+     * @param mergeMoves 'true' if moves queued for the subscriber are sent as one 'moves' event
+     * @return SseEmitter
+     */
+    public SseEmitter createEmitter(final String gameId, final Long lastEventId, final boolean mergeMoves) {
+        // A timeout of 0 keeps the connection open until the client leaves or a write fails
+        SseEmitter emitter = new SseEmitter(timeout);
+        SseSubscriber subscriber =
+                new SseSubscriber(emitter, dispatcher, queueCapacity, slowConsumerPolicy, false, mergeMoves);
+
+        emitter.onCompletion(() -> closeSubscriber(gameId, subscriber));
+        emitter.onTimeout(() -> closeSubscriber(gameId, subscriber));
+        emitter.onError((error) -> closeSubscriber(gameId, subscriber));
 
-        subscribers.computeIfAbsent(gameId, key -> new CopyOnWriteArrayList<>()).add(emitter);
+        addConnection(subscriber);
+        withHistory(gameId, history -> {
+            addSubscriber(gameId, subscriber);
+            if(lastEventId != null) history.since(lastEventId).forEach(subscriber::enqueue);
+        });
 
         return emitter;
     }
 
     /**
-     * Sends a move update to all subscribers of the game with 'gameId'
+     * Creates an SseEmitter following all games with the provided ids. The first event ('stream') carries the id
+     * of the stream, which is needed to change the followed games later on
+     *
+     * @param gameIds Collection of gameIds
+     * @param mergeMoves 'true' if moves queued for the subscriber are sent as one 'moves' event
+     * @return SseEmitter
+     */
+    public SseEmitter createStream(Collection<String> gameIds, boolean mergeMoves) {
+        checkStreamSize(gameIds.size());
+
+        SseEmitter emitter = new SseEmitter(timeout);
+        SseSubscriber subscriber =
+                new SseSubscriber(emitter, dispatcher, queueCapacity, slowConsumerPolicy, true, mergeMoves);
+        String streamId = openStream(subscriber);
+
+        emitter.onCompletion(() -> closeStream(streamId));
+        emitter.onTimeout(() -> closeStream(streamId));
+        emitter.onError((error) -> closeStream(streamId));
+
+        subscriber.enqueue(new ServerSentEvent(ServerSentEvent.STREAM, 0, streamId, null));
+        updateStream(streamId, gameIds);
+
+        return emitter;
+    }
+
+    /**
+     * Opens a stream for the subscriber, which does not follow any game yet. The returned id is needed
+     * to change the followed games and to close the stream
+     *
+     * @param subscriber Subscriber
+     * @return id of the stream
+     */
+    public String openStream(Subscriber subscriber) {
+        String streamId = UUID.randomUUID().toString();
+
+        addConnection(subscriber);
+        streams.put(streamId, new Stream(subscriber));
+        return streamId;
+    }
+
+    /**
+     * Opens a stream sending the events of the followed games over the WebSocket session
      *
+     * @param session thread-safe WebSocketSession
+     * @return id of the stream
+     */
+    public String openStream(WebSocketSession session) {
+        return openStream(new WebSocketSubscriber(session, dispatcher, queueCapacity, slowConsumerPolicy));
+    }
+
+    /**
+     * Adds a game to the stream with 'streamId' and replays all events after the event with 'lastEventId'.
+     * Returns 'false' if no such stream is open
+     *
+     * @param streamId String
      * @param gameId String
-     * @param move String
+     * @param lastEventId id of the last event the client has received or null
+     * @return boolean
+     */
+    public boolean follow(String streamId, String gameId, Long lastEventId) {
+        Stream stream = streams.get(streamId);
+        if(stream == null) return false;
+
+        synchronized(stream) {
+            if(stream.closed) return false;
+            if(stream.gameIds.contains(gameId)) return true;
+            checkStreamSize(stream.gameIds.size() + 1);
+
+            withHistory(gameId, history -> {
+                addSubscriber(gameId, stream.subscriber);
+                if(lastEventId != null) history.since(lastEventId).forEach(stream.subscriber::enqueue);
+            });
+            stream.gameIds.add(gameId);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a game from the stream with 'streamId'. Returns 'false' if no such stream is open
+     *
+     * @param streamId String
+     * @param gameId String
+     * @return boolean
+     */
+    public boolean unfollow(String streamId, String gameId) {
+        Stream stream = streams.get(streamId);
+        if(stream == null) return false;
+
+        synchronized(stream) {
+            if(stream.closed) return false;
+            if(stream.gameIds.remove(gameId)) removeSubscriber(gameId, stream.subscriber);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the games followed by the stream with 'streamId'. Returns 'false' if no such stream is open
+     *
+     * @param streamId String
+     * @param gameIds Collection of gameIds
+     * @return boolean
+     */
+    public boolean updateStream(String streamId, Collection<String> gameIds) {
+        checkStreamSize(gameIds.size());
+
+        Stream stream = streams.get(streamId);
+        if(stream == null) return false;
+
+        synchronized(stream) {
+            if(stream.closed) return false;
+
+            Set<String> followed = new HashSet<>(gameIds);
+            stream.gameIds.stream()
+                    .filter(gameId -> !followed.contains(gameId))
+                    .forEach(gameId -> removeSubscriber(gameId, stream.subscriber));
+            followed.stream()
+                    .filter(gameId -> !stream.gameIds.contains(gameId))
+                    .forEach(gameId -> addSubscriber(gameId, stream.subscriber));
+
+            stream.gameIds.clear();
+            stream.gameIds.addAll(followed);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the stream with 'streamId' and removes it from all followed games
+     *
+     * @param streamId String
+     */
+    public void closeStream(String streamId) {
+        Stream stream = streams.remove(streamId);
+        if(stream == null) return;
+
+        synchronized(stream) {
+            stream.closed = true;
+            stream.subscriber.close();
+            stream.gameIds.forEach(gameId -> removeSubscriber(gameId, stream.subscriber));
+            stream.gameIds.clear();
+        }
+        connections.remove(stream.subscriber);
+    }
+
+    /**
+     * Throws a BadRequestException if a stream would follow too many games
+     *
+     * @param size Number of followed games
+     */
+    private void checkStreamSize(int size) {
+        if(size > maxStreamGames) {
+            throw new BadRequestException("A stream can follow at most " + maxStreamGames + " games");
+        }
+    }
+
+    /**
+     * Creates an SseEmitter for the lobby and replays all lobby events after the event with 'lastEventId'
+     *
+     * @param lastEventId id of the last event the client has received or null
+     * @return SseEmitter
+     */
+    public SseEmitter createLobbyEmitter(final Long lastEventId) {
+        return createEmitter(LOBBY, lastEventId, false);
+    }
+
+    /**
+     * Sends a lobby update to all subscribers of the lobby
+     *
+     * @param name ServerSentEvent.CREATED, JOINED or FINISHED
+     * @param lobbyEvent LobbyEventDto
      */
-    public void sendMoveUpdate(String gameId, String move) {
-        List<SseEmitter> emittersList = subscribers.getOrDefault(gameId, Collections.emptyList());
-        List<SseEmitter> deadEmitters = new ArrayList<>();
+    public void sendLobbyUpdate(String name, LobbyEventDto lobbyEvent) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(lobbyEvent);
+        } catch(JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
 
-        emittersList.forEach(emitter -> {
+        // The id is taken from the event bus, so lobby ids are unique across all instances. It is taken
+        // inside the lock, so ids are published in order
+        synchronized(lobbyLock) {
+            long id;
             try {
-                emitter.send(SseEmitter.event().name("move").data(move));
-            } catch(IOException e) {
-                // We don't know when the connection is closed on the client's side. When we want to send a
-                // message to the client and get an error, we know that the connection has been closed client side
-                deadEmitters.add(emitter);
+                id = eventBus.nextEventId(LOBBY);
+            } catch(RuntimeException e) {
+                // The game itself has been saved already, so the request does not fail
+                log.warn("Lobby event {} not published: {}", name, e.getMessage());
+                return;
             }
-        });
-        emittersList.removeAll(deadEmitters);
+            eventBus.publish(LOBBY, new ServerSentEvent(name, id, data, null));
+        }
+    }
+
+    /**
+     * Sends a move update to all subscribers of the game with 'gameId'
+     *
+     * @param gameId String
+     * @param ply Number of moves played including this move
+     * @param move String
+     * @param fen FEN-String after the move
+     */
+    public void sendMoveUpdate(String gameId, int ply, String move, String fen) {
+        publish(gameId, new ServerSentEvent(gameId, ServerSentEvent.MOVE, ply, move, fen));
     }
 
     /**
@@ -79,17 +479,93 @@ public class EventService {
      * @param username String
      */
     public void sendPlayerJoinedUpdate(String gameId, String username) {
-        List<SseEmitter> emittersList = subscribers.getOrDefault(gameId, Collections.emptyList());
-        List<SseEmitter> deadEmitters = new ArrayList<>();
+        // A player joins before the first move
+        publish(gameId, new ServerSentEvent(gameId, ServerSentEvent.JOIN, 0, username, null));
+    }
 
-        emittersList.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event().name("join").data(username));
-            } catch(IOException e) {
-                deadEmitters.add(emitter);
+    /**
+     * Publishes the event to the subscribers of the game with 'gameId' on all instances
+     *
+     * @param gameId String
+     * @param event ServerSentEvent
+     */
+    private void publish(String gameId, ServerSentEvent event) {
+        eventBus.publish(gameId, event);
+    }
+
+    /**
+     * Records an event received from the event bus and queues it for the subscribers of this instance
+     *
+     * @param channel gameId or the lobby
+     * @param event ServerSentEvent
+     */
+    private void deliver(String channel, ServerSentEvent event) {
+        EventBroadcastEvent broadcast = new EventBroadcastEvent();
+        broadcast.begin();
+
+        withHistory(channel, history -> {
+            history.record(event);
+            Set<Subscriber> channelSubscribers = subscribers.getOrDefault(channel, Collections.emptySet());
+            channelSubscribers.forEach(subscriber -> subscriber.enqueue(event));
+            broadcast.subscriberCount = channelSubscribers.size();
+        });
+
+        broadcast.end();
+        if(broadcast.shouldCommit()) {
+            broadcast.channel = channel;
+            broadcast.name = event.getName();
+            broadcast.bytes = event.getFrame().length;
+            broadcast.commit();
+        }
+    }
+
+    /**
+     * Sends a heartbeat to all subscribers. Connections closed on the client's side are detected
+     * by the failing write and removed
+     */
+    private void sendHeartbeats() {
+        connections.forEach(Subscriber::heartbeat);
+    }
+
+    /**
+     * Runs the action while holding the lock of the game's event history
+     *
+     * @param gameId String
+     * @param action Consumer of the EventHistory
+     */
+    private void withHistory(String gameId, Consumer<EventHistory> action) {
+        while(true) {
+            EventHistory history = histories.computeIfAbsent(gameId, key -> new EventHistory(replayBufferSize));
+            synchronized(history) {
+                // The history has been removed meanwhile, a new one is created
+                if(history.isRetired()) continue;
+                action.accept(history);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the event histories of games without subscribers and without events for the retention time
+     */
+    @Scheduled(fixedDelayString = "${springboard.sse.replay-retention:600000}")
+    public void removeIdleHistories() {
+        histories.forEach((gameId, history) -> {
+            synchronized(history) {
+                if(!history.isIdle(replayRetentionNanos) || getSubscriberCount(gameId) > 0) return;
+                history.retire();
+                histories.remove(gameId, history);
             }
         });
-        emittersList.removeAll(deadEmitters);
+    }
+
+    /**
+     * Stops the heartbeats and the dispatcher
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        dispatcher.shutdownNow();
     }
 
 }
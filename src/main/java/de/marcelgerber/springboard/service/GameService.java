@@ -1,17 +1,26 @@
 package de.marcelgerber.springboard.service;
 
+import de.marcelgerber.springboard.dto.response.LobbyEventDto;
 import de.marcelgerber.springboard.model.Player;
 import de.marcelgerber.springboard.util.chesslogic.Color;
 import de.marcelgerber.springboard.exception.BadRequestException;
 import de.marcelgerber.springboard.exception.NotFoundException;
-import de.marcelgerber.springboard.repository.GameRepository;
+import de.marcelgerber.springboard.repository.GameStore;
 import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.util.chesslogic.Board;
 import de.marcelgerber.springboard.util.chesslogic.GameState;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import de.marcelgerber.springboard.util.jfr.GameSaveEvent;
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class for handling CRUD-operations for a game
@@ -19,14 +28,33 @@ import java.util.Optional;
 @Service
 public class GameService {
 
-    private final GameRepository gameRepository;
+    private final GameStore gameStore;
     private final EventService eventService;
     private final PlayerService playerService;
+    private final JournalService journalService;
 
-    public GameService(GameRepository gameRepository, EventService eventService, PlayerService playerService) {
-        this.gameRepository = gameRepository;
+    // Time spent in the phases of playMove(), to tell whether a slow move comes from the chess logic,
+    // the database or the event fan-out
+    private final Timer loadTimer;
+    private final Timer initTimer;
+    private final Timer validateTimer;
+    private final Timer applyTimer;
+    private final Timer saveTimer;
+    private final Timer fanOutTimer;
+
+    public GameService(GameStore gameStore, EventService eventService, PlayerService playerService,
+                       JournalService journalService, MeterRegistry meterRegistry) {
+        this.gameStore = gameStore;
         this.eventService = eventService;
         this.playerService = playerService;
+        this.journalService = journalService;
+
+        this.loadTimer = phaseTimer(meterRegistry, "load");
+        this.initTimer = phaseTimer(meterRegistry, "init");
+        this.validateTimer = phaseTimer(meterRegistry, "validate");
+        this.applyTimer = phaseTimer(meterRegistry, "apply");
+        this.saveTimer = phaseTimer(meterRegistry, "save");
+        this.fanOutTimer = phaseTimer(meterRegistry, "fanout");
     }
 
     /**
@@ -36,7 +64,7 @@ public class GameService {
      * @return boolean
      */
     public boolean exists(String id) {
-        return gameRepository.existsById(id);
+        return journalService.getPendingGame(id) != null || gameStore.existsById(id);
     }
 
     /**
@@ -46,17 +74,21 @@ public class GameService {
      * @return Game if present
      */
     public Game getGameById(String id) {
-        Optional<Game> game = gameRepository.findById(id);
+        // Games with journaled moves that have not been flushed yet are newer than the database
+        Game pendingGame = journalService.getPendingGame(id);
+        if(pendingGame != null) return pendingGame;
+
+        Optional<Game> game = gameStore.findById(id);
         return game.orElseThrow(() -> new NotFoundException("Game not found with ID " + id));
     }
 
     /**
-     * Returns all games in the database
+     * Returns all games in the database, which have not been archived
      *
      * @return List of Games
      */
     public List<Game> getAllGames() {
-        return gameRepository.findAll();
+        return gameStore.findAll();
     }
 
     /**
@@ -70,6 +102,24 @@ public class GameService {
         return game.getMoves();
     }
 
+    /**
+     * Returns the position of a game after the provided ply
+     *
+     * @param id String
+     * @param ply int
+     * @return Board
+     */
+    public Board getPositionAt(String id, int ply) {
+        Game game = getGameById(id);
+
+        if(ply < 0 || ply > game.getMoves().size()) {
+            throw new BadRequestException("Ply out of range: " + ply);
+        }
+
+        // Games played before the move log existed are replayed from their moves
+        return gameStore.findPositionAt(id, ply).orElseGet(() -> game.replayMoves(ply));
+    }
+
     /**
      * Creates a new game, saves it in the database and returns it
      *
@@ -83,8 +133,10 @@ public class GameService {
         Color color = Color.fromString(stringColor);
         if(color == Color.NONE) color = Color.WHITE;
 
-        Game game = new Game(color, player);
-        return gameRepository.save(game);
+        Game game = gameStore.create(new Game(color, player));
+
+        eventService.sendLobbyUpdate(ServerSentEvent.CREATED, new LobbyEventDto(game));
+        return game;
     }
 
     /**
@@ -96,24 +148,51 @@ public class GameService {
      * @return Game
      */
     public Game playMove(String playerId, String gameId, String move) {
+        long start = System.nanoTime();
         Game game = getGameById(gameId);
+        start = record(loadTimer, start);
 
-        if(game.getState() != GameState.ONGOING) throw new BadRequestException("Game is not in ongoing state");
+        // Games from the journal are shared between requests
+        synchronized(game) {
+            if(game.getState() != GameState.ONGOING) throw new BadRequestException("Game is not in ongoing state");
 
-        // Initialized Board is needed for getPlayerToMove() and playMove()
-        game.initializeBoard();
+            // Initialized Board is needed for getPlayerToMove() and playMove()
+            start = System.nanoTime();
+            game.initializeBoard();
+            start = record(initTimer, start);
 
-        Player player = playerService.getPlayerById(playerId);
-        Player playerToMove = game.getPlayerToMove();
+            // The id from the verified JWT is compared with the game's players, the player is not fetched
+            Player playerToMove = game.getPlayerToMove();
 
-        if(!player.getId().equals(playerToMove.getId())) throw new BadRequestException("You are not the next to move");
+            if(playerToMove == null || !playerToMove.getId().equals(playerId)) {
+                throw new BadRequestException("You are not the next to move");
+            }
 
-        game.playMove(move);
+            Move playedMove = game.validateMove(move);
+            start = record(validateTimer, start);
 
-        // Send move update to subscribers
-        eventService.sendMoveUpdate(gameId, move);
+            // Makes the move, serializes the new FEN and checks whether the game has ended
+            game.applyMove(playedMove);
+            start = record(applyTimer, start);
 
-        return gameRepository.save(game);
+            // The move is acknowledged once it is durable in the journal, it gets flushed to the database later
+            GameSaveEvent saveEvent = new GameSaveEvent();
+            saveEvent.begin();
+            boolean journaled = journalService.append(game, playedMove);
+            if(!journaled) {
+                gameStore.saveMove(game, game.getMoves().size(), playedMove);
+            }
+            commit(saveEvent, gameId, game.getMoves().size(), journaled);
+            start = record(saveTimer, start);
+
+            // Subscribers only see moves that have been persisted
+            eventService.sendMoveUpdate(gameId, game.getMoves().size(), move, game.getFen());
+            if(game.getState().isFinished()) {
+                eventService.sendLobbyUpdate(ServerSentEvent.FINISHED, new LobbyEventDto(game));
+            }
+            record(fanOutTimer, start);
+            return game;
+        }
     }
 
     /**
@@ -137,24 +216,148 @@ public class GameService {
             throw new BadRequestException("You already joined the game");
         }
 
-        // Send update to all subscribers that a player has joined the game
-        eventService.sendPlayerJoinedUpdate(gameId, playerJoining.getUsername());
-
         game.setJoiningPlayerName(playerJoining);
         game.setOngoing();
 
-        return gameRepository.save(game);
+        GameSaveEvent saveEvent = new GameSaveEvent();
+        saveEvent.begin();
+        gameStore.save(game);
+        commit(saveEvent, gameId, game.getMoves().size(), false);
+
+        // Send update to all subscribers that a player has joined the game
+        eventService.sendPlayerJoinedUpdate(gameId, playerJoining.getUsername());
+        eventService.sendLobbyUpdate(ServerSentEvent.JOINED, new LobbyEventDto(game));
+        return game;
     }
 
     /**
-     * Returns an SseEmitter if a game with the provided gameId exists
+     * Returns an SseEmitter if a game with the provided gameId exists. Events after 'lastEventId' are replayed
      *
      * @param gameId String
+     * @param lastEventId id of the last event the client has received or null
+     * @param mergeMoves 'true' if moves queued for a slow client are sent as one 'moves' event
      * @return SseEmitter
      */
-    public SseEmitter subscribeToEvents(String gameId) {
+    public SseEmitter subscribeToEvents(String gameId, Long lastEventId, boolean mergeMoves) {
         if(!exists(gameId)) throw new NotFoundException("Game not found with ID " + gameId);
-        return eventService.createEmitter(gameId);
+        return eventService.createEmitter(gameId, lastEventId, mergeMoves);
+    }
+
+    /**
+     * Returns an SseEmitter sending created, joined and finished games. Events after 'lastEventId' are replayed
+     *
+     * @param lastEventId id of the last event the client has received or null
+     * @return SseEmitter
+     */
+    public SseEmitter subscribeToLobby(Long lastEventId) {
+        return eventService.createLobbyEmitter(lastEventId);
+    }
+
+    /**
+     * Returns an SseEmitter following all games with the provided ids on one connection
+     *
+     * @param gameIds List of gameIds
+     * @param mergeMoves 'true' if moves queued for a slow client are sent as one 'moves' event
+     * @return SseEmitter
+     */
+    public SseEmitter subscribeToStream(List<String> gameIds, boolean mergeMoves) {
+        checkGamesExist(gameIds);
+        return eventService.createStream(gameIds, mergeMoves);
+    }
+
+    /**
+     * Replaces the games followed by the stream with 'streamId'
+     *
+     * @param streamId String
+     * @param gameIds List of gameIds
+     */
+    public void updateStream(String streamId, List<String> gameIds) {
+        checkGamesExist(gameIds);
+        if(!eventService.updateStream(streamId, gameIds)) {
+            throw new NotFoundException("Stream not found with ID " + streamId);
+        }
+    }
+
+    /**
+     * Adds a game to the stream with 'streamId'. Events after 'lastEventId' are replayed
+     *
+     * @param streamId String
+     * @param gameId String
+     * @param lastEventId id of the last event the client has received or null
+     */
+    public void followGame(String streamId, String gameId, Long lastEventId) {
+        if(!exists(gameId)) throw new NotFoundException("Game not found with ID " + gameId);
+        if(!eventService.follow(streamId, gameId, lastEventId)) {
+            throw new NotFoundException("Stream not found with ID " + streamId);
+        }
+    }
+
+    /**
+     * Removes a game from the stream with 'streamId'
+     *
+     * @param streamId String
+     * @param gameId String
+     */
+    public void unfollowGame(String streamId, String gameId) {
+        if(!eventService.unfollow(streamId, gameId)) {
+            throw new NotFoundException("Stream not found with ID " + streamId);
+        }
+    }
+
+    /**
+     * Records the time since 'start' and returns the current time as the start of the next phase
+     *
+     * @param timer Timer
+     * @param start System.nanoTime() at the start of the phase
+     * @return long
+     */
+    private static long record(Timer timer, long start) {
+        long now = System.nanoTime();
+        timer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Commits the JFR event of a save if it is enabled
+     *
+     * @param event GameSaveEvent
+     * @param gameId String
+     * @param ply int
+     * @param journaled 'true' if the game was written to the journal
+     */
+    private static void commit(GameSaveEvent event, String gameId, int ply, boolean journaled) {
+        event.end();
+        if(event.shouldCommit()) {
+            event.gameId = gameId;
+            event.ply = ply;
+            event.journaled = journaled;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the timer of a phase of playMove()
+     *
+     * @param meterRegistry MeterRegistry
+     * @param phase String
+     * @return Timer
+     */
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("springboard.move.phase")
+                .description("Time spent in a phase of playing a move")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws a NotFoundException if one of the games does not exist
+     *
+     * @param gameIds List of gameIds
+     */
+    private void checkGamesExist(List<String> gameIds) {
+        for(String gameId : new HashSet<>(gameIds)) {
+            if(!exists(gameId)) throw new NotFoundException("Game not found with ID " + gameId);
+        }
     }
 
 }
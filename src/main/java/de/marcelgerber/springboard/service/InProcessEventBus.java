@@ -0,0 +1,40 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Event bus of a single instance, events are delivered synchronously
+ */
+@Service
+@ConditionalOnProperty(name = "springboard.events.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessEventBus implements EventBus {
+
+    private final List<BiConsumer<String, ServerSentEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Event ids per channel, starting at the current time so they keep increasing across restarts
+    private final ConcurrentHashMap<String, AtomicLong> eventIds = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, ServerSentEvent event) {
+        listeners.forEach(listener -> listener.accept(channel, event));
+    }
+
+    @Override
+    public void subscribe(BiConsumer<String, ServerSentEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public long nextEventId(String channel) {
+        return eventIds.computeIfAbsent(channel, key -> new AtomicLong(System.currentTimeMillis())).incrementAndGet();
+    }
+
+}
@@ -0,0 +1,296 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.exception.BadRequestException;
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.repository.GameRepository;
+import de.marcelgerber.springboard.repository.MoveLogStore;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import de.marcelgerber.springboard.util.journal.MoveJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Class for acknowledging accepted moves as soon as they are durable in a local write-ahead journal.
+ * A background writer flushes them to MongoDB in order, unflushed moves are replayed at startup.
+ */
+@Slf4j
+@Service
+public class JournalService {
+
+    private record PendingWrite(Game game, MoveJournal.Entry entry, CompletableFuture<Void> flushed) { }
+
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final GameRepository gameRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MoveLogStore moveLogStore;
+
+    private final boolean enabled;
+    private final Path path;
+    private final int size;
+    private final long fsyncInterval;
+
+    // Games with moves that have not been flushed yet. These are shared between requests
+    private final ConcurrentHashMap<String, Game> pendingGames = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingWrite> writeQueue = new LinkedBlockingQueue<>();
+    private final List<CompletableFuture<Void>> pendingSyncs = new ArrayList<>();
+
+    private MoveJournal journal;
+    private volatile boolean running;
+    private Thread syncThread;
+    private Thread writerThread;
+
+    public JournalService(GameRepository gameRepository,
+                          MongoTemplate mongoTemplate,
+                          MoveLogStore moveLogStore,
+                          @Value("${springboard.journal.enabled:false}") boolean enabled,
+                          @Value("${springboard.journal.path:data/moves.journal}") String path,
+                          @Value("${springboard.journal.size:67108864}") int size,
+                          @Value("${springboard.journal.fsync-interval:2}") long fsyncInterval) {
+        this.gameRepository = gameRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.moveLogStore = moveLogStore;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.size = size;
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    /**
+     * Opens the journal, replays all unflushed moves and starts the background threads
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if(!enabled) return;
+
+        journal = new MoveJournal(path, size);
+        replayUnflushed();
+
+        running = true;
+        syncThread = Thread.ofPlatform().name("journal-sync").daemon().start(this::syncLoop);
+        writerThread = Thread.ofPlatform().name("journal-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Returns 'true' if accepted moves are written to the journal
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the game if it has moves that have not been flushed to the database yet
+     *
+     * @param gameId String
+     * @return Game or null
+     */
+    public Game getPendingGame(String gameId) {
+        return pendingGames.get(gameId);
+    }
+
+    /**
+     * Appends the last played move of the game to the journal and waits until it is durable. <br>
+     * Returns 'false' when the journal is disabled or full, then the game has to be saved synchronously.
+     * If the journal cannot be synced, the move is acknowledged once it has been flushed to the database
+     *
+     * @param game Game with the move already played
+     * @param move Move
+     * @return boolean
+     */
+    public boolean append(Game game, Move move) {
+        if(!enabled) return false;
+
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        PendingWrite pendingWrite;
+
+        synchronized(this) {
+            Game pendingGame = pendingGames.get(game.getId());
+            if(pendingGame != null && pendingGame != game) {
+                throw new BadRequestException("Game has been updated concurrently");
+            }
+
+            MoveJournal.Entry entry = journal.append(game.getId(), game.getMoves().size(), move.encode());
+            if(entry == null) return false;
+
+            pendingWrite = new PendingWrite(game, entry, new CompletableFuture<>());
+            pendingGames.put(game.getId(), game);
+            writeQueue.add(pendingWrite);
+            pendingSyncs.add(synced);
+            notifyAll();
+        }
+
+        try {
+            synced.join();
+        } catch(CompletionException e) {
+            // The move is already queued for the database and will be persisted, so it must not be reported
+            // as failed. It is acknowledged once the writer has flushed it instead
+            log.warn("Could not sync the journal, waiting for the database write: {}", e.getCause().getMessage());
+            pendingWrite.flushed().join();
+        }
+        return true;
+    }
+
+    /**
+     * Forces the journal to the storage device in batches, so one fsync covers all moves arriving meanwhile
+     */
+    private void syncLoop() {
+        while(running) {
+            List<CompletableFuture<Void>> batch;
+
+            try {
+                synchronized(this) {
+                    while(running && pendingSyncs.isEmpty()) wait();
+                }
+                Thread.sleep(fsyncInterval);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized(this) {
+                batch = new ArrayList<>(pendingSyncs);
+                pendingSyncs.clear();
+            }
+            try {
+                journal.force();
+                batch.forEach(future -> future.complete(null));
+            } catch(RuntimeException e) {
+                batch.forEach(future -> future.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Flushes the journaled moves to MongoDB in order and retries until the database is reachable
+     */
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+
+        while(running || !writeQueue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if(batch.isEmpty()) {
+                    PendingWrite pendingWrite = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if(pendingWrite == null) continue;
+                    batch.add(pendingWrite);
+                }
+                writeQueue.drainTo(batch);
+
+                flush(batch);
+                batch.clear();
+            } catch(InterruptedException e) {
+                return;
+            } catch(RuntimeException e) {
+                log.warn("Could not flush {} journaled moves, retrying: {}", batch.size(), e.getMessage());
+                if(!running) return;
+
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch(InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the latest state of every game in the batch, appends the moves to the move log
+     * and moves the checkpoint of the journal
+     *
+     * @param batch List of PendingWrites
+     */
+    private void flush(List<PendingWrite> batch) {
+        Map<String, Game> games = new LinkedHashMap<>();
+        batch.forEach(pendingWrite -> games.put(pendingWrite.game().getId(), pendingWrite.game()));
+
+        for(Game game : games.values()) {
+            // Only the conversion needs the lock, so new moves are not blocked by the database write
+            Document document = new Document();
+            synchronized(game) {
+                mongoTemplate.getConverter().write(game, document);
+            }
+            mongoTemplate.save(document, "games");
+        }
+
+        batch.forEach(pendingWrite -> appendToMoveLog(pendingWrite.entry()));
+        journal.checkpoint(batch.getLast().entry().endOffset());
+        batch.forEach(pendingWrite -> pendingWrite.flushed().complete(null));
+
+        for(PendingWrite pendingWrite : batch) {
+            Game game = pendingWrite.game();
+            synchronized(game) {
+                if(game.getMoves().size() == pendingWrite.entry().ply()) pendingGames.remove(game.getId(), game);
+            }
+        }
+    }
+
+    /**
+     * Applies all moves of the journal that have not been flushed before the last shutdown
+     */
+    private void replayUnflushed() {
+        List<MoveJournal.Entry> entries = journal.readUnflushed();
+        if(entries.isEmpty()) return;
+
+        log.info("Replaying {} unflushed moves from the journal", entries.size());
+
+        for(MoveJournal.Entry entry : entries) {
+            Optional<Game> optionalGame = gameRepository.findById(entry.gameId());
+
+            if(optionalGame.isEmpty()) {
+                log.warn("Skipping journaled move of unknown game {}", entry.gameId());
+                continue;
+            }
+
+            Game game = optionalGame.get();
+            if(game.getMoves().size() == entry.ply() - 1) {
+                game.initializeBoard();
+                game.applyMove(Move.decode(entry.encodedMove()));
+                gameRepository.save(game);
+            }
+            appendToMoveLog(entry);
+        }
+        journal.checkpoint(entries.getLast().endOffset());
+    }
+
+    /**
+     * Appends the journaled move to the move log, unless it has been appended before
+     *
+     * @param entry MoveJournal.Entry
+     */
+    private void appendToMoveLog(MoveJournal.Entry entry) {
+        try {
+            moveLogStore.append(entry.gameId(), entry.ply(), Move.decode(entry.encodedMove()));
+        } catch(DuplicateKeyException e) {
+            // Already in the move log
+        }
+    }
+
+    /**
+     * Stops the background threads and closes the journal. Moves that could not be flushed
+     * are replayed at the next startup
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if(!enabled) return;
+
+        running = false;
+        synchronized(this) {
+            notifyAll();
+        }
+        syncThread.join();
+        writerThread.join(5000);
+        journal.close();
+    }
+
+}
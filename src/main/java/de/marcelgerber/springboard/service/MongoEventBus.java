@@ -0,0 +1,240 @@
+package de.marcelgerber.springboard.service;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Event bus shared by all instances through a capped collection. Events are inserted once and every instance
+ * follows the collection with a tailable cursor. Own events are delivered directly and skipped when tailing
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "springboard.events.bus", havingValue = "mongo")
+public class MongoEventBus implements EventBus {
+
+    private static final String COLLECTION = "events";
+    private static final String ID_COLLECTION = "eventIds";
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final long size;
+
+    // Identifies the events of this instance
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<BiConsumer<String, ServerSentEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Inserts run on one thread, so events arrive at other instances in the order they were published
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("event-bus-publisher").daemon().factory());
+
+    private volatile boolean running;
+    private Thread tailThread;
+
+    // Last document read by the tail thread, the position to resume from
+    private ObjectId lastId;
+
+    public MongoEventBus(MongoTemplate mongoTemplate,
+                         @Value("${springboard.events.mongo.size:16777216}") long size) {
+        this.mongoTemplate = mongoTemplate;
+        this.size = size;
+    }
+
+    /**
+     * Starts following the collection. Nothing blocks the startup if MongoDB is not reachable yet
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        tailThread = Thread.ofPlatform().name("event-bus-tail").daemon().start(this::tailLoop);
+    }
+
+    @Override
+    public void publish(String channel, ServerSentEvent event) {
+        deliver(channel, event);
+
+        Document document = new Document("node", nodeId)
+                .append("channel", channel)
+                .append("gameId", event.getGameId())
+                .append("name", event.getName())
+                .append("eventId", event.getId())
+                .append("data", event.getData())
+                .append("fen", event.getFen());
+
+        publisher.execute(() -> {
+            try {
+                mongoTemplate.getCollection(COLLECTION).insertOne(document);
+            } catch(MongoException e) {
+                log.warn("Could not publish event of {} to other instances: {}", channel, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(BiConsumer<String, ServerSentEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public long nextEventId(String channel) {
+        Document counter = mongoTemplate.getCollection(ID_COLLECTION).findOneAndUpdate(
+                Filters.eq("_id", channel),
+                Updates.inc("value", 1L),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return counter.getLong("value");
+    }
+
+    /**
+     * Delivers an event to the listeners of this instance
+     *
+     * @param channel String
+     * @param event ServerSentEvent
+     */
+    private void deliver(String channel, ServerSentEvent event) {
+        listeners.forEach(listener -> listener.accept(channel, event));
+    }
+
+    /**
+     * Follows the capped collection and delivers events of other instances. A lost cursor is reopened
+     * right away after the last received event, only failures are retried after a delay
+     */
+    private void tailLoop() {
+        boolean initialized = false;
+
+        while(running) {
+            try {
+                MongoCollection<Document> collection = getOrCreateCollection();
+                if(!initialized) {
+                    lastId = findLastId(collection);
+                    initialized = true;
+                }
+                follow(collection);
+            } catch(MongoException | IllegalStateException e) {
+                if(!running) return;
+                log.warn("Following the event bus failed, retrying: {}", e.getMessage());
+
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch(InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers the events inserted after 'lastId' until the cursor ends. ObjectIds are created by the clients
+     * and do not follow the insertion order, so the cursor is not filtered by them. It reads the whole collection
+     * in insertion order ($natural, the only order of a tailable cursor) and skips everything up to 'lastId'.
+     * Without a filter the cursor also stays open while no events are published
+     *
+     * @param collection MongoCollection
+     */
+    private void follow(MongoCollection<Document> collection) {
+        boolean skipping = lastId != null && collection.find(Filters.eq("_id", lastId)).first() != null;
+        if(lastId != null && !skipping) log.warn("Event bus fell behind, events of other instances may be lost");
+
+        try(MongoCursor<Document> cursor = collection.find().cursorType(CursorType.TailableAwait).iterator()) {
+            while(running) {
+                if(skipping) {
+                    Document document = cursor.tryNext();
+                    if(document == null) {
+                        // 'lastId' has been overwritten while skipping
+                        log.warn("Event bus fell behind, events of other instances may be lost");
+                        skipping = false;
+                    } else if(document.getObjectId("_id").equals(lastId)) {
+                        skipping = false;
+                    }
+                    continue;
+                }
+
+                if(!cursor.hasNext()) return;
+                Document document = cursor.next();
+                lastId = document.getObjectId("_id");
+
+                String channel = document.getString("channel");
+                if(channel == null || nodeId.equals(document.getString("node"))) continue;
+                deliver(channel, toEvent(document));
+            }
+        }
+    }
+
+    /**
+     * Returns the capped collection and creates it if needed. A tailable cursor on an empty collection ends
+     * at once, so an empty collection gets a marker document without a channel
+     *
+     * @return MongoCollection
+     */
+    private MongoCollection<Document> getOrCreateCollection() {
+        if(!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.getDb().createCollection(COLLECTION,
+                        new CreateCollectionOptions().capped(true).sizeInBytes(size));
+            } catch(MongoException e) {
+                // Created by another instance meanwhile
+            }
+        }
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        if(collection.find().first() == null) collection.insertOne(new Document("node", nodeId));
+        return collection;
+    }
+
+    /**
+     * Returns the id of the latest event, so only new events are delivered after the startup
+     *
+     * @param collection MongoCollection
+     * @return ObjectId or null if the collection is empty
+     */
+    private ObjectId findLastId(MongoCollection<Document> collection) {
+        Document last = collection.find().sort(Sorts.descending("$natural")).limit(1).first();
+        return last == null ? null : last.getObjectId("_id");
+    }
+
+    /**
+     * Converts a document of the capped collection to an event
+     *
+     * @param document Document
+     * @return ServerSentEvent
+     */
+    private ServerSentEvent toEvent(Document document) {
+        return new ServerSentEvent(document.getString("gameId"), document.getString("name"),
+                document.getLong("eventId"), document.getString("data"), document.getString("fen"));
+    }
+
+    /**
+     * Stops following the collection
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        publisher.shutdown();
+        tailThread.interrupt();
+        tailThread.join(5000);
+    }
+
+}
@@ -0,0 +1,117 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+
+/**
+ * Class for hashing and checking passwords on a bounded pool of worker threads. BCrypt is deliberately slow,
+ * so a burst of logins must not occupy the request threads serving the games. Requests are rejected with
+ * a TooManyRequestsException while the queue of the pool is full
+ */
+@Service
+public class PasswordService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordService(PasswordEncoder passwordEncoder,
+                           MeterRegistry meterRegistry,
+                           @Value("${springboard.password.threads:0}") int threads,
+                           @Value("${springboard.password.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("password-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        Gauge.builder("springboard.password.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a worker thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the hash of the provided password
+     *
+     * @param password String
+     * @return String
+     */
+    public String encode(String password) {
+        return run(encodeTimer, () -> passwordEncoder.encode(password));
+    }
+
+    /**
+     * Returns 'true' if the password matches the hash
+     *
+     * @param password String
+     * @param encodedPassword String
+     * @return boolean
+     */
+    public boolean matches(String password, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(password, encodedPassword));
+    }
+
+    /**
+     * Runs the task on the pool and waits for its result
+     *
+     * @param timer Timer recording the time of the task
+     * @param task Callable
+     * @return result of the task
+     */
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch(RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many requests, please try again later");
+        }
+
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the password", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the timer of the BCrypt work on the worker threads, without the time waiting in the queue
+     *
+     * @param meterRegistry MeterRegistry
+     * @param operation String
+     * @return Timer
+     */
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("springboard.password.hash")
+                .description("Time spent hashing and checking passwords")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+}
@@ -2,10 +2,16 @@ package de.marcelgerber.springboard.service;
 
 import de.marcelgerber.springboard.exception.BadRequestException;
 import de.marcelgerber.springboard.exception.NotFoundException;
-import de.marcelgerber.springboard.repository.PlayerRepository;
+import de.marcelgerber.springboard.exception.TooManyRequestsException;
+import de.marcelgerber.springboard.repository.PlayerStore;
 import de.marcelgerber.springboard.model.Player;
+import de.marcelgerber.springboard.util.cache.ExpiringCache;
 import de.marcelgerber.springboard.util.jwt.JwtUtil;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import de.marcelgerber.springboard.util.ratelimit.RateLimiter;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -16,16 +22,38 @@ import java.util.*;
 @Service
 public class PlayerService {
 
-    private final PlayerRepository playerRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PlayerStore playerStore;
+    private final PasswordService passwordService;
     private final BlackListService blackListService;
-
-    public PlayerService(PlayerRepository playerRepository,
-                         PasswordEncoder passwordEncoder,
-                         BlackListService blackListService) {
-        this.playerRepository = playerRepository;
-        this.passwordEncoder = passwordEncoder;
+    private final JwtUtil jwtUtil;
+
+    // Players by id, so requests of the same players do not fetch them again
+    private final ExpiringCache<String, Player> playerCache;
+    private final long playerCacheTtl;
+
+    // Login attempts are throttled per username against password guessing and per IP address against
+    // clients flooding the password hashing
+    private final RateLimiter usernameLimiter;
+    private final RateLimiter addressLimiter;
+
+    public PlayerService(PlayerStore playerStore,
+                         PasswordService passwordService,
+                         BlackListService blackListService,
+                         JwtUtil jwtUtil,
+                         @Value("${springboard.player-cache.size:10000}") int playerCacheSize,
+                         @Value("${springboard.player-cache.ttl:60000}") long playerCacheTtl,
+                         @Value("${springboard.login.per-username.capacity:5}") int usernameCapacity,
+                         @Value("${springboard.login.per-username.refill-per-minute:6}") int usernameRefill,
+                         @Value("${springboard.login.per-ip.capacity:20}") int addressCapacity,
+                         @Value("${springboard.login.per-ip.refill-per-minute:60}") int addressRefill) {
+        this.playerStore = playerStore;
+        this.passwordService = passwordService;
         this.blackListService = blackListService;
+        this.jwtUtil = jwtUtil;
+        this.playerCache = new ExpiringCache<>(playerCacheSize);
+        this.playerCacheTtl = playerCacheTtl;
+        this.usernameLimiter = new RateLimiter(usernameCapacity, usernameRefill);
+        this.addressLimiter = new RateLimiter(addressCapacity, addressRefill);
     }
 
     /**
@@ -34,17 +62,22 @@ public class PlayerService {
      * @return List of PlayerDocument
      */
     public List<Player> getAllPlayers() {
-        return playerRepository.findAll();
+        return playerStore.findAll();
     }
 
     /**
-     * Finds a player by id and returns it if exists
+     * Finds a player by id and returns it if exists. Players are cached for 'playerCacheTtl' ms, which is safe
+     * as long as stored players are never changed
      *
      * @param playerId String
      * @return GameDocument if present
      */
     public Player getPlayerById(String playerId) {
-        Optional<Player> player = playerRepository.findById(playerId);
+        Player cached = playerCache.get(playerId);
+        if(cached != null) return cached;
+
+        Optional<Player> player = playerStore.findById(playerId);
+        player.ifPresent(this::cachePlayer);
         return player.orElseThrow(() -> new NotFoundException("Player could not be found with ID: " + playerId));
     }
 
@@ -55,7 +88,7 @@ public class PlayerService {
      * @return PlayerDocument
      */
     public Player getPlayerByUsername(String username) {
-        Optional<Player> player = playerRepository.findByUsername(username);
+        Optional<Player> player = playerStore.findByUsername(username);
         return player.orElseThrow(() -> new NotFoundException("Player could not be found with username: " + username));
     }
 
@@ -64,14 +97,24 @@ public class PlayerService {
      *
      * @param username String
      * @param password String
+     * @param clientAddress IP address of the client
      * @return PlayerDocument
      */
-    public Player signupPlayer(String username, String password) {
-        if(existsByUsername(username)) throw new BadRequestException("Username is already taken");
+    public Player signupPlayer(String username, String password, String clientAddress) {
+        if(!addressLimiter.tryAcquire(clientAddress)) throw new TooManyRequestsException("Too many attempts");
+
+        String encodedPassword = passwordService.encode(password);
 
-        String encodedPassword = passwordEncoder.encode(password);
-        Player player = new Player(username, encodedPassword);
-        return playerRepository.save(player);
+        // One insert, the unique index on the username decides between concurrent signups
+        Player player;
+        try {
+            player = playerStore.insert(new Player(username, encodedPassword));
+        } catch(DuplicateKeyException e) {
+            throw new BadRequestException("Username is already taken");
+        }
+
+        cachePlayer(player);
+        return player;
     }
 
     /**
@@ -81,38 +124,51 @@ public class PlayerService {
      *
      * @param username String
      * @param password String
+     * @param clientAddress IP address of the client
      * @return JWT as String
      */
-    public Map<String, Player> loginPlayer(String username, String password) {
-        if(!existsByUsername(username)) throw new BadRequestException("Wrong username or password");
+    public Map<String, Player> loginPlayer(String username, String password, String clientAddress) {
+        if(!addressLimiter.tryAcquire(clientAddress) || !usernameLimiter.tryAcquire(username)) {
+            throw new TooManyRequestsException("Too many login attempts");
+        }
 
-        Player player = getPlayerByUsername(username);
+        Player player = playerStore.findByUsername(username)
+                .orElseThrow(() -> new BadRequestException("Wrong username or password"));
 
-        if(!passwordEncoder.matches(password, player.getPassword())) {
+        if(!passwordService.matches(password, player.getPassword())) {
             throw new BadRequestException("Wrong username or password");
         }
 
-        String token = JwtUtil.generateToken(player.getId());
+        String token = jwtUtil.generateToken(player.getId());
         return Collections.singletonMap(token, player);
     }
 
     /**
-     * Adds the provided JWT to the black list
+     * Revokes the provided JWT on all instances
      *
      * @param token JWT as String
      */
     public void logoutPlayer(String token) {
-        blackListService.addToken(token);
+        Claims claims = jwtUtil.getClaims(token);
+        blackListService.revokeToken(claims.getId(), claims.getExpiration());
     }
 
     /**
-     * Returns 'true' when a player with the provided username exists
+     * Drops the rate limits of clients, which have not tried to log in for a while
+     */
+    @Scheduled(fixedDelayString = "${springboard.login.cleanup-interval:60000}")
+    public void removeIdleRateLimits() {
+        usernameLimiter.removeFullBuckets();
+        addressLimiter.removeFullBuckets();
+    }
+
+    /**
+     * Caches a player for 'playerCacheTtl' ms
      *
-     * @param username String
-     * @return boolean
+     * @param player Player
      */
-    private boolean existsByUsername(String username) {
-        return playerRepository.existsByUsername(username);
+    private void cachePlayer(Player player) {
+        playerCache.put(player.getId(), player, System.currentTimeMillis() + playerCacheTtl);
     }
 
 }
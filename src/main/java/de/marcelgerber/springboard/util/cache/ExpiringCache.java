@@ -0,0 +1,102 @@
+package de.marcelgerber.springboard.util.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe cache with a maximum size where every entry expires at its own point in time.
+ * When the cache is full, expired entries are removed first, then arbitrary ones
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) { }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public ExpiringCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the value of the key or null if it is not cached or expired
+     *
+     * @param key K
+     * @return V or null
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if(entry == null) return null;
+
+        if(entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Caches the value until 'expiresAt'
+     *
+     * @param key K
+     * @param value V
+     * @param expiresAt expiration in milliseconds since the epoch
+     */
+    public void put(K key, V value, long expiresAt) {
+        if(maxSize <= 0 || expiresAt <= System.currentTimeMillis()) return;
+
+        if(entries.size() >= maxSize && !entries.containsKey(key)) makeRoom();
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Removes the key from the cache
+     *
+     * @param key K
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached entries, including expired ones that have not been removed yet
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all expired entries
+     */
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+
+    /**
+     * Removes expired entries and, if the cache is still full, an arbitrary tenth of the entries
+     */
+    private void makeRoom() {
+        removeExpired();
+
+        Iterator<K> iterator = entries.keySet().iterator();
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        while(toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+}
@@ -1,12 +1,14 @@
 package de.marcelgerber.springboard.util.chesslogic;
 
 import de.marcelgerber.springboard.util.chesslogic.pieces.*;
+import de.marcelgerber.springboard.util.jfr.FenEvent;
 import lombok.Data;
 import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Class for representing a logical (not persistent) Chess board.
@@ -36,6 +38,15 @@ public class Board {
     private byte halfMoveCounter;
     private int plies;
 
+    // Size of a binary encoded position: 32 bytes for the pieces (one nibble per square) + 6 bytes of state
+    public static final int BINARY_LENGTH = 38;
+
+    // Piece characters in the order of their binary piece codes (code 0 is an empty square)
+    private static final String PIECE_CODES = " PNBRQK";
+
+    // Number of legal move generations of all boards, exposed as a metric
+    private static final LongAdder LEGAL_MOVE_GENERATIONS = new LongAdder();
+
     // All previous states of the board will be saved in here
     private final Stack<StateInfo> prevStates = new Stack<>();
 
@@ -435,6 +446,36 @@ public class Board {
         return false;
     }
 
+    /**
+     * Returns 'true' when the side to move is currently in check
+     *
+     * @return boolean
+     */
+    public boolean isInCheck() {
+        return areAttacked(new byte[] { getKingSquare(sideToMove).getIndex() });
+    }
+
+    /**
+     * Returns 'true' when neither side has enough material left to checkmate
+     * (only kings, or kings and a single knight or bishop)
+     *
+     * @return boolean
+     */
+    public boolean hasInsufficientMaterial() {
+        int minorPieces = 0;
+
+        for(byte index = 0; index < 64; index++) {
+            switch(getPiece(index).getType()) {
+                case KNIGHT, BISHOP -> minorPieces++;
+                case PAWN, ROOK, QUEEN -> {
+                    return false;
+                }
+                default -> { }
+            }
+        }
+        return minorPieces <= 1;
+    }
+
     /**
      * Returns all current pseudo legal moves
      *
@@ -452,12 +493,23 @@ public class Board {
         return pseudoLegalMoves;
     }
 
+    /**
+     * Returns how often the legal moves have been generated on any board
+     *
+     * @return long
+     */
+    public static long getLegalMoveGenerations() {
+        return LEGAL_MOVE_GENERATIONS.sum();
+    }
+
     /**
      * Returns all current legal moves
      *
      * @return List of Moves
      */
     public List<Move> getLegalMoves() {
+        LEGAL_MOVE_GENERATIONS.increment();
+
         List<Move> pseudoLegalMoves = getPseudoLegalMoves();
         List<Move> legalMoves = new ArrayList<>();
 
@@ -471,6 +523,19 @@ public class Board {
         return legalMoves;
     }
 
+    /**
+     * Returns the legal move matching the provided String-move in pure coordinate notation or null
+     *
+     * @param move String-move
+     * @return Move or null
+     */
+    public Move findLegalMove(String move) {
+        for(Move legal : getLegalMoves()) {
+            if(legal.toPureCoordinateNotation().equals(move)) return legal;
+        }
+        return null;
+    }
+
     /**
      * Returns the boards' full move counter
      *
@@ -486,6 +551,26 @@ public class Board {
      * @return FEN string
      */
     public String getFen() {
+        FenEvent event = new FenEvent();
+        event.begin();
+
+        String fen = writeFen();
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.operation = FenEvent.SERIALIZE;
+            event.fen = fen;
+            event.commit();
+        }
+        return fen;
+    }
+
+    /**
+     * Serializes the board position into a FEN string
+     *
+     * @return FEN string
+     */
+    private String writeFen() {
         StringBuilder fen = new StringBuilder();
 
         for(byte rank = 7; rank >= 0; rank--) {
@@ -544,6 +629,25 @@ public class Board {
      * @param fen String
      */
     public void setFen(String fen) {
+        FenEvent event = new FenEvent();
+        event.begin();
+
+        readFen(fen);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.operation = FenEvent.PARSE;
+            event.fen = fen;
+            event.commit();
+        }
+    }
+
+    /**
+     * Parses the FEN string into the board position
+     *
+     * @param fen String
+     */
+    private void readFen(String fen) {
         reset();
 
         String[] split = fen.split(" ");
@@ -591,6 +695,74 @@ public class Board {
         }
     }
 
+    /**
+     * Returns the Zobrist hash of the current board position
+     *
+     * @return long
+     */
+    public long getHash() {
+        return Zobrist.hash(this);
+    }
+
+    /**
+     * Returns the current board position in a compact binary format. <br>
+     * Bytes 0-31: pieces (one nibble per square, bit 3 set for black pieces) <br>
+     * Bytes 32-37: side to move, castling rights, en passant index, half move counter and plies
+     *
+     * @return byte array with a length of {@link #BINARY_LENGTH}
+     */
+    public byte[] toBinary() {
+        byte[] binary = new byte[BINARY_LENGTH];
+
+        for(byte index = 0; index < 64; index++) {
+            Piece piece = getPiece(index);
+            if(piece instanceof NullPiece) continue;
+
+            int code = PIECE_CODES.indexOf(Character.toUpperCase(piece.getChar()));
+            if(piece.getColor() == Color.BLACK) code |= 8;
+
+            binary[index >> 1] |= (byte) (code << ((index & 1) * 4));
+        }
+
+        binary[32] = (byte) this.sideToMove.ordinal();
+        binary[33] = this.castling.getCastlingRights();
+        binary[34] = this.enPassant.getIndex();
+        binary[35] = this.halfMoveCounter;
+        binary[36] = (byte) (this.plies >> 8);
+        binary[37] = (byte) this.plies;
+
+        return binary;
+    }
+
+    /**
+     * Sets the board position based on a binary position created by {@link #toBinary()}
+     *
+     * @param binary byte array
+     */
+    public void setBinary(byte[] binary) {
+        if(binary.length != BINARY_LENGTH) {
+            throw new IllegalArgumentException("Unexpected length of binary position: " + binary.length);
+        }
+        reset();
+
+        for(byte index = 0; index < 64; index++) {
+            int code = (binary[index >> 1] >> ((index & 1) * 4)) & 0xF;
+            if(code == 0) continue;
+
+            char c = PIECE_CODES.charAt(code & 7);
+            placePiece(index, Piece.fromChar((code & 8) != 0 ? Character.toLowerCase(c) : c));
+        }
+
+        this.sideToMove = binary[32] == Color.BLACK.ordinal() ? Color.BLACK : Color.WHITE;
+        this.enPassant = new Square(binary[34]);
+        this.halfMoveCounter = binary[35];
+        this.plies = ((binary[36] & 0xFF) << 8) | (binary[37] & 0xFF);
+
+        for(CastlingValue castlingValue : CastlingValue.values()) {
+            if((binary[33] & castlingValue.getValue()) != 0) this.castling.set(castlingValue);
+        }
+    }
+
     /**
      * Sets the standard opening position
      */
@@ -9,6 +9,19 @@ public enum GameState {
     DRAW_BY_50_MOVE_RULE,
     DRAW_BY_REPETITION,
     DRAW_BY_INSUFFICIENT_MATERIAL,
+    DRAW_BY_STALEMATE,
     WIN_BLACK,
-    WIN_WHITE
+    WIN_WHITE;
+
+    /**
+     * Returns 'true' if the game has ended with this state
+     *
+     * @return boolean
+     */
+    public boolean isFinished() {
+        return switch(this) {
+            case WAITING_FOR_PLAYER_TO_JOIN, ONGOING -> false;
+            default -> true;
+        };
+    }
 }
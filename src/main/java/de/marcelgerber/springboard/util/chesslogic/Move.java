@@ -30,6 +30,49 @@ public class Move {
         this.promotion = PieceType.NONE;
     }
 
+    // Promotion piece types in the order they are stored in the two promotion bits of an encoded move
+    private static final PieceType[] promotionTypes = {
+            PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN
+    };
+
+    /**
+     * Encodes the move into 16 bits: <br>
+     * Bits 0-5: from-index, bits 6-11: to-index, bits 12-13: move type, bits 14-15: promotion piece type
+     *
+     * @return short
+     */
+    public short encode() {
+        int type = switch(moveType) {
+            case NORMAL, CAPTURE -> 0;
+            case PROMOTION -> 1;
+            case ENPASSANT -> 2;
+            case CASTLING -> 3;
+        };
+        int promotionBits = 0;
+        for(int i = 0; i < promotionTypes.length; i++) {
+            if(promotionTypes[i] == promotion) promotionBits = i;
+        }
+        return (short) (from.getIndex() | (to.getIndex() << 6) | (type << 12) | (promotionBits << 14));
+    }
+
+    /**
+     * Decodes a move that has been encoded with {@link #encode()}
+     *
+     * @param encoded short
+     * @return Move
+     */
+    public static Move decode(short encoded) {
+        Square from = new Square((byte) (encoded & 0x3F));
+        Square to = new Square((byte) ((encoded >>> 6) & 0x3F));
+
+        return switch((encoded >>> 12) & 0x3) {
+            case 1 -> new Move(MoveType.PROMOTION, from, to, promotionTypes[(encoded >>> 14) & 0x3]);
+            case 2 -> new Move(MoveType.ENPASSANT, from, to);
+            case 3 -> new Move(MoveType.CASTLING, from, to);
+            default -> new Move(from, to);
+        };
+    }
+
     /**
      * Converts the move to a "Pure Coordinate Notation"-String
      *
@@ -0,0 +1,64 @@
+package de.marcelgerber.springboard.util.chesslogic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterOutputStream;
+
+/**
+ * Class for storing a list of moves compactly: every move is encoded into 2 bytes (see Move.encode())
+ * and the whole list is compressed with Deflate
+ */
+public final class MoveListCodec {
+
+    private MoveListCodec() { }
+
+    /**
+     * Encodes and compresses the moves
+     *
+     * @param moves List of Moves
+     * @return compressed byte array
+     */
+    public static byte[] encode(List<Move> moves) {
+        ByteBuffer buffer = ByteBuffer.allocate(moves.size() * 2);
+        moves.forEach(move -> buffer.putShort(move.encode()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(DeflaterOutputStream deflater =
+                    new DeflaterOutputStream(output, new Deflater(Deflater.BEST_COMPRESSION))) {
+            deflater.write(buffer.array());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decompresses and decodes moves created by {@link #encode(List)}
+     *
+     * @param encoded compressed byte array
+     * @return List of Moves
+     */
+    public static List<Move> decode(byte[] encoded) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(InflaterOutputStream inflater = new InflaterOutputStream(output)) {
+            inflater.write(encoded);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray());
+        List<Move> moves = new ArrayList<>(buffer.remaining() / 2);
+
+        while(buffer.remaining() >= 2) {
+            moves.add(Move.decode(buffer.getShort()));
+        }
+        return moves;
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.marcelgerber.springboard.util.chesslogic;
+
+import de.marcelgerber.springboard.util.chesslogic.pieces.Piece;
+import de.marcelgerber.springboard.util.chesslogic.pieces.PieceType;
+
+import java.util.Random;
+
+/**
+ * Zobrist hashing of board positions.
+ * More information here: <a href="https://www.chessprogramming.org/Zobrist_Hashing">chessprogramming</a>
+ */
+public final class Zobrist {
+
+    // Fixed seed, so hashes stay the same across restarts and can be persisted
+    private static final long SEED = 0x5350524E47424F41L;
+
+    private static final long[][] pieceKeys = new long[12][64];
+    private static final long[] castlingKeys = new long[16];
+    private static final long[] enPassantKeys = new long[8];
+    private static final long sideToMoveKey;
+
+    static {
+        Random random = new Random(SEED);
+
+        for(long[] keys : pieceKeys) {
+            for(int index = 0; index < 64; index++) {
+                keys[index] = random.nextLong();
+            }
+        }
+        for(int i = 0; i < castlingKeys.length; i++) {
+            castlingKeys[i] = random.nextLong();
+        }
+        for(int i = 0; i < enPassantKeys.length; i++) {
+            enPassantKeys[i] = random.nextLong();
+        }
+        sideToMoveKey = random.nextLong();
+    }
+
+    private Zobrist() { }
+
+    /**
+     * Calculates the Zobrist hash of the current board position
+     *
+     * @param board Board
+     * @return long
+     */
+    public static long hash(Board board) {
+        long hash = 0L;
+
+        for(byte index = 0; index < 64; index++) {
+            Piece piece = board.getPiece(index);
+            if(piece.getType() == PieceType.NONE) continue;
+
+            int pieceIndex = piece.getType().ordinal() + (piece.getColor() == Color.BLACK ? 6 : 0);
+            hash ^= pieceKeys[pieceIndex][index];
+        }
+
+        hash ^= castlingKeys[board.getCastling().getCastlingRights() & 0xF];
+
+        if(board.getEnPassant().getValue() != SquareValue.NONE) {
+            hash ^= enPassantKeys[board.getEnPassant().getFileIndex()];
+        }
+
+        if(board.getSideToMove() == Color.BLACK) {
+            hash ^= sideToMoveKey;
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,27 @@
+package de.marcelgerber.springboard.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of handing an event of a game to its subscribers. The writes themselves run on the dispatcher
+ */
+@Name("de.marcelgerber.springboard.EventBroadcast")
+@Label("Event Broadcast")
+@Category({ "SpringBoard", "Events" })
+@StackTrace(false)
+public class EventBroadcastEvent extends Event {
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Event")
+    public String name;
+
+    @Label("Subscribers")
+    public int subscriberCount;
+
+    @Label("Frame Size")
+    @DataAmount
+    public int bytes;
+
+}
@@ -0,0 +1,23 @@
+package de.marcelgerber.springboard.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of parsing a FEN string into a board or serializing a board into a FEN string
+ */
+@Name("de.marcelgerber.springboard.Fen")
+@Label("FEN")
+@Category({ "SpringBoard", "Chess" })
+@StackTrace(false)
+public class FenEvent extends Event {
+
+    public static final String PARSE = "parse";
+    public static final String SERIALIZE = "serialize";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("FEN")
+    public String fen;
+
+}
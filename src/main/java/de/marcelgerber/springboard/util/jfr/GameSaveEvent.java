@@ -0,0 +1,24 @@
+package de.marcelgerber.springboard.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of persisting a game, either into the journal or into MongoDB
+ */
+@Name("de.marcelgerber.springboard.GameSave")
+@Label("Game Save")
+@Category({ "SpringBoard", "Persistence" })
+@StackTrace(false)
+public class GameSaveEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Ply")
+    public int ply;
+
+    @Label("Journaled")
+    @Description("The move was written to the journal and gets flushed to MongoDB later")
+    public boolean journaled;
+
+}
@@ -0,0 +1,26 @@
+package de.marcelgerber.springboard.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of the validation of a played move against the legal moves of the position
+ */
+@Name("de.marcelgerber.springboard.MoveValidation")
+@Label("Move Validation")
+@Category({ "SpringBoard", "Chess" })
+@StackTrace(false)
+public class MoveValidationEvent extends Event {
+
+    @Label("FEN")
+    public String fen;
+
+    @Label("Move")
+    public String move;
+
+    @Label("Legal Moves")
+    public int legalMoveCount;
+
+    @Label("Legal")
+    public boolean legal;
+
+}
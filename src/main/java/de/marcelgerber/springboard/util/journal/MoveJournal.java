@@ -0,0 +1,156 @@
+package de.marcelgerber.springboard.util.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped write-ahead journal for accepted moves. <br>
+ * Layout: an 8 byte header containing the checkpoint (offset of the first entry that has not been
+ * flushed to the database yet), followed by records of [int length][int crc][payload].
+ * A record with length 0 marks the end of the journal.
+ */
+public class MoveJournal implements Closeable {
+
+    /**
+     * Entry of the journal
+     *
+     * @param gameId String
+     * @param ply Number of half moves played after this move
+     * @param encodedMove Move encoded with Move.encode()
+     * @param endOffset Offset right after this entry, used as checkpoint once the entry has been flushed
+     */
+    public record Entry(String gameId, int ply, short encodedMove, int endOffset) { }
+
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writeOffset;
+
+    public MoveJournal(Path path, int size) throws IOException {
+        if(path.getParent() != null) Files.createDirectories(path.getParent());
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        long checkpoint = buffer.getLong(0);
+        if(checkpoint < HEADER_SIZE || checkpoint >= size) setCheckpoint(HEADER_SIZE);
+
+        // New entries are appended after the last valid entry
+        List<Entry> unflushed = readUnflushed();
+        this.writeOffset = unflushed.isEmpty() ? getCheckpoint() : unflushed.getLast().endOffset();
+    }
+
+    /**
+     * Appends an entry to the journal. Returns null if there is not enough space left
+     *
+     * @param gameId String
+     * @param ply int
+     * @param encodedMove short
+     * @return Entry or null if the journal is full
+     */
+    public synchronized Entry append(String gameId, int ply, short encodedMove) {
+        byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + id.length + 4 + 2;
+
+        if(writeOffset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+            // Start from the beginning again, but only if everything has already been flushed
+            if(getCheckpoint() != writeOffset) return null;
+
+            writeOffset = HEADER_SIZE;
+            setCheckpoint(HEADER_SIZE);
+        }
+
+        int offset = writeOffset + RECORD_HEADER_SIZE;
+        buffer.putShort(offset, (short) id.length);
+        buffer.put(offset + 2, id);
+        buffer.putInt(offset + 2 + id.length, ply);
+        buffer.putShort(offset + 6 + id.length, encodedMove);
+
+        buffer.putInt(writeOffset + 4, crc(offset, length));
+        buffer.putInt(writeOffset, length);
+
+        writeOffset = offset + length;
+        if(writeOffset + 4 <= buffer.capacity()) buffer.putInt(writeOffset, 0);
+
+        return new Entry(gameId, ply, encodedMove, writeOffset);
+    }
+
+    /**
+     * Returns all entries that have not been flushed to the database yet
+     *
+     * @return List of Entries
+     */
+    public synchronized List<Entry> readUnflushed() {
+        List<Entry> entries = new ArrayList<>();
+        int offset = getCheckpoint();
+
+        while(offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            int payload = offset + RECORD_HEADER_SIZE;
+
+            // Stop at the end marker or at a torn write
+            if(length <= 0 || payload + length > buffer.capacity()) break;
+            if(buffer.getInt(offset + 4) != crc(payload, length)) break;
+
+            int idLength = buffer.getShort(payload);
+            byte[] id = new byte[idLength];
+            buffer.get(payload + 2, id);
+
+            int ply = buffer.getInt(payload + 2 + idLength);
+            short encodedMove = buffer.getShort(payload + 6 + idLength);
+
+            offset = payload + length;
+            entries.add(new Entry(new String(id, StandardCharsets.UTF_8), ply, encodedMove, offset));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks all entries up to the provided offset as flushed
+     *
+     * @param offset int
+     */
+    public synchronized void checkpoint(int offset) {
+        setCheckpoint(offset);
+    }
+
+    /**
+     * Writes all changes of the memory-mapped file to the storage device
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    private int getCheckpoint() {
+        return (int) buffer.getLong(0);
+    }
+
+    private void setCheckpoint(int offset) {
+        buffer.putLong(0, offset);
+    }
+
+    private int crc(int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+}
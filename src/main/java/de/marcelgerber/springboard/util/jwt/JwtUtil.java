@@ -1,71 +1,214 @@
 package de.marcelgerber.springboard.util.jwt;
 
+import de.marcelgerber.springboard.util.cache.ExpiringCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.security.MacAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Class providing methods for JWT-authentication
+ * Class providing methods for JWT-authentication. Tokens are signed with the active key of a key ring,
+ * so all instances sharing the keystore accept each other's tokens
  */
+@Slf4j
+@Component
 public class JwtUtil {
 
     private static final MacAlgorithm ALGORITHM = Jwts.SIG.HS512;
-    private static final SecretKey SECRET_KEY = ALGORITHM.key().build();
 
     // 1 hour in milliseconds
     private static final long EXPIRATION_TIME = 3600000;
 
+    private final Path keystore;
+    private final char[] password;
+    private final String activeKeyId;
+    private final Duration activationDelay;
+
+    private volatile KeyRing keyRing;
+    private FileTime lastModified;
+
+    // Parsers are immutable and thread-safe, so one is shared by all requests. The key is looked up
+    // by the 'kid' header in the current key ring
+    private final JwtParser parser = Jwts.parser().keyLocator(header -> {
+        String keyId = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        SecretKey key = keyRing.getKey(keyId);
+        if(key == null) throw new SignatureException("Unknown signing key " + keyId);
+        return key;
+    }).build();
+
+    // Claims of tokens with a verified signature until the tokens expire. Repeated requests of a player
+    // skip the signature verification
+    private final ExpiringCache<String, Claims> verifiedClaims = new ExpiringCache<>(10000);
+
+    private final Timer verifyTimer;
+
+    @Autowired
+    public JwtUtil(@Value("${springboard.jwt.keystore:}") String keystore,
+                   @Value("${springboard.jwt.keystore-password:}") String password,
+                   @Value("${springboard.jwt.active-key:}") String activeKeyId,
+                   @Value("${springboard.jwt.activation-delay:120000}") long activationDelay,
+                   MeterRegistry meterRegistry) {
+        this.verifyTimer = verifyTimer(meterRegistry);
+        this.keystore = keystore.isBlank() ? null : Path.of(keystore);
+        this.password = password.toCharArray();
+        this.activeKeyId = activeKeyId;
+        this.activationDelay = Duration.ofMillis(activationDelay);
+
+        if(this.keystore == null) {
+            log.warn("No JWT keystore configured, tokens are only valid on this instance until it restarts");
+            this.keyRing = KeyRing.random();
+        } else {
+            try {
+                this.lastModified = Files.getLastModifiedTime(this.keystore);
+                this.keyRing = KeyRing.load(this.keystore, this.password, activeKeyId, this.activationDelay);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public JwtUtil(KeyRing keyRing, MeterRegistry meterRegistry) {
+        this.verifyTimer = verifyTimer(meterRegistry);
+        this.keystore = null;
+        this.password = new char[0];
+        this.activeKeyId = null;
+        this.activationDelay = Duration.ZERO;
+        this.keyRing = keyRing;
+    }
+
+    /**
+     * Reloads the keystore when it has changed. Tokens signed with a key that is still in the keystore
+     * stay valid, so a new key can be rolled out while the previous one is kept until its tokens expire.
+     * A new key only signs tokens after the activation delay, which has to exceed the reload interval
+     */
+    @Scheduled(fixedDelayString = "${springboard.jwt.reload-interval:60000}")
+    public synchronized void reloadKeys() {
+        if(keystore == null) return;
+
+        try {
+            FileTime modified = Files.getLastModifiedTime(keystore);
+            if(modified.equals(lastModified)) return;
+
+            setKeyRing(KeyRing.load(keystore, password, activeKeyId, activationDelay));
+            lastModified = modified;
+            log.info("Reloaded JWT keystore, active key is {}", keyRing.getActiveKeyId());
+        } catch(IOException e) {
+            // The current keys stay in use until the keystore can be read again
+            log.warn("Cannot reload JWT keystore {}", keystore, e);
+        }
+    }
+
+    /**
+     * Replaces the key ring. Cached claims are dropped if a key has been removed
+     *
+     * @param keyRing KeyRing
+     */
+    public synchronized void setKeyRing(KeyRing keyRing) {
+        boolean keysRemoved = !this.keyRing.isSubsetOf(keyRing);
+        this.keyRing = keyRing;
+        if(keysRemoved) verifiedClaims.clear();
+    }
+
     /**
      * Generates a new token for the provided username
      *
      * @param playerId String
      * @return JWT as String
      */
-    public static String generateToken(String playerId) {
+    public String generateToken(String playerId) {
+        KeyRing ring = keyRing;
+        String keyId = ring.getActiveKeyId();
         return Jwts.builder()
+                .header().keyId(keyId).and()
+                .id(UUID.randomUUID().toString())
                 .subject(playerId)
                 .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SECRET_KEY, ALGORITHM)
+                .signWith(ring.getKey(keyId), ALGORITHM)
                 .compact();
     }
 
     /**
-     * Returns 'true' when the provided token is valid for the provided username
+     * Returns the subject of the provided token
      *
      * @param token JWT as String
-     * @param playerId String
      * @return String
      */
-    public static boolean isTokenValid(String token, String playerId) {
-        Claims claims = getClaims(token);
-        return claims.getSubject().equals(playerId) && !claims.getExpiration().before(new Date());
+    public String getSubject(String token) {
+        return getClaims(token).getSubject();
     }
 
     /**
-     * Returns the subject of the provided token
+     * Returns all Claims of the provided token. Throws a JwtException if the token is invalid or expired.
+     * The signature of a token is only verified once
      *
      * @param token JWT as String
-     * @return String
+     * @return Claims
      */
-    public static String getSubject(String token) {
-        return getClaims(token).getSubject();
+    public Claims getClaims(String token) {
+        String digest = digest(token);
+
+        Claims claims = verifiedClaims.get(digest);
+        if(claims != null) return claims;
+
+        long start = System.nanoTime();
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if(claims.getExpiration() != null) verifiedClaims.put(digest, claims, claims.getExpiration().getTime());
+        return claims;
     }
 
     /**
-     * Returns all Claims of the provided token
+     * Returns the timer of the signature verifications, cached tokens are not verified again
+     *
+     * @param meterRegistry MeterRegistry
+     * @return Timer
+     */
+    private static Timer verifyTimer(MeterRegistry meterRegistry) {
+        return Timer.builder("springboard.jwt.verify")
+                .description("Time spent parsing and verifying JWTs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the SHA-256 digest of the token, so the cache does not hold the tokens themselves
      *
      * @param token JWT as String
-     * @return Claims
+     * @return Base64-encoded digest
      */
-    private static Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(SECRET_KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
@@ -0,0 +1,131 @@
+package de.marcelgerber.springboard.util.jwt;
+
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable set of HMAC keys identified by their key id ('kid'). New tokens are signed with the active key,
+ * tokens are verified with whichever key their 'kid' header names. Without a fixed active key, a key only
+ * verifies tokens until its activation time, so every instance knows it before the first token is signed with it
+ */
+public class KeyRing {
+
+    private final Map<String, SecretKey> keys;
+    private final String activeKeyId;
+    private final Map<String, Instant> activations;
+
+    public KeyRing(Map<String, SecretKey> keys, String activeKeyId) {
+        if(!keys.containsKey(activeKeyId)) throw new IllegalArgumentException("Unknown active key " + activeKeyId);
+        this.keys = Map.copyOf(keys);
+        this.activeKeyId = activeKeyId;
+        this.activations = Map.of();
+    }
+
+    public KeyRing(Map<String, SecretKey> keys, Map<String, Instant> activations) {
+        if(keys.isEmpty()) throw new IllegalArgumentException("No keys");
+        if(!activations.keySet().equals(keys.keySet())) throw new IllegalArgumentException("Keys without activation");
+        this.keys = Map.copyOf(keys);
+        this.activeKeyId = null;
+        this.activations = Map.copyOf(activations);
+    }
+
+    /**
+     * Returns a key ring with one random key, which is only known to this instance
+     *
+     * @return KeyRing
+     */
+    public static KeyRing random() {
+        String keyId = "random-" + UUID.randomUUID();
+        return new KeyRing(Map.of(keyId, Jwts.SIG.HS512.key().build()), keyId);
+    }
+
+    /**
+     * Loads all secret keys of a PKCS12 keystore, the aliases are the key ids. Without 'activeKeyId'
+     * each key becomes active 'activationDelay' after it has been added to the keystore
+     *
+     * @param path Path of the keystore
+     * @param password password of the keystore and its keys
+     * @param activeKeyId alias of the key signing new tokens or null
+     * @param activationDelay Duration a new key only verifies tokens
+     * @return KeyRing
+     * @throws IOException if the keystore cannot be read
+     */
+    public static KeyRing load(Path path, char[] password, String activeKeyId, Duration activationDelay)
+            throws IOException {
+        try(InputStream in = Files.newInputStream(path)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+
+            Map<String, SecretKey> keys = new HashMap<>();
+            Map<String, Instant> activations = new HashMap<>();
+
+            for(String alias : Collections.list(keyStore.aliases())) {
+                if(!keyStore.isKeyEntry(alias)) continue;
+
+                Key key = keyStore.getKey(alias, password);
+                if(!(key instanceof SecretKey secretKey)) continue;
+                keys.put(alias, secretKey);
+
+                Date created = keyStore.getCreationDate(alias);
+                activations.put(alias, created == null ? Instant.EPOCH : created.toInstant().plus(activationDelay));
+            }
+
+            if(keys.isEmpty()) throw new IOException("No secret keys in keystore " + path);
+            if(activeKeyId == null || activeKeyId.isBlank()) return new KeyRing(keys, activations);
+            return new KeyRing(keys, activeKeyId);
+        } catch(GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("Cannot load keystore " + path, e);
+        }
+    }
+
+    /**
+     * Returns the key with the provided id or null
+     *
+     * @param keyId String
+     * @return SecretKey
+     */
+    public SecretKey getKey(String keyId) {
+        return keyId == null ? null : keys.get(keyId);
+    }
+
+    /**
+     * Returns the id of the key signing new tokens: the fixed active key or the most recently activated one.
+     * If no key has been activated yet, e.g. in a new keystore, the first key to be activated is used
+     *
+     * @return String
+     */
+    public String getActiveKeyId() {
+        if(activeKeyId != null) return activeKeyId;
+
+        Instant now = Instant.now();
+        Comparator<Map.Entry<String, Instant>> byActivation = Map.Entry.comparingByValue();
+        return activations.entrySet().stream()
+                .filter(entry -> !entry.getValue().isAfter(now))
+                .max(byActivation)
+                .or(() -> activations.entrySet().stream().min(byActivation))
+                .map(Map.Entry::getKey)
+                .orElseThrow();
+    }
+
+    /**
+     * Returns 'true' if every key of this ring is also part of the other ring
+     *
+     * @param other KeyRing
+     * @return boolean
+     */
+    public boolean isSubsetOf(KeyRing other) {
+        return keys.entrySet().stream().allMatch(entry -> entry.getValue().equals(other.keys.get(entry.getKey())));
+    }
+
+}
@@ -0,0 +1,47 @@
+package de.marcelgerber.springboard.util.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limiter with one TokenBucket per key, e.g. per username or IP address. Buckets are only kept
+ * while they are not full, a missing bucket is the same as a full one
+ */
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int refillPerMinute;
+
+    public RateLimiter(int capacity, int refillPerMinute) {
+        this.capacity = capacity;
+        this.refillPerMinute = refillPerMinute;
+    }
+
+    /**
+     * Takes one token of the key's bucket
+     *
+     * @param key String
+     * @return 'true' if the request is allowed
+     */
+    public boolean tryAcquire(String key) {
+        if(capacity <= 0) return true;
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerMinute)).tryConsume();
+    }
+
+    /**
+     * Removes all buckets that have been refilled completely
+     */
+    public void removeFullBuckets() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    /**
+     * Returns the number of buckets
+     *
+     * @return int
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+}
@@ -0,0 +1,53 @@
+package de.marcelgerber.springboard.util.ratelimit;
+
+/**
+ * Token bucket holding up to 'capacity' tokens, refilled continuously with 'refillPerMinute' tokens per minute
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(int capacity, int refillPerMinute) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / 60_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes one token if available
+     *
+     * @return 'true' if a token has been taken
+     */
+    public synchronized boolean tryConsume() {
+        refill();
+        if(tokens < 1) return false;
+
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Returns 'true' if the bucket has been refilled completely, so it can be dropped
+     *
+     * @return boolean
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    /**
+     * Adds the tokens refilled since the last call
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+
+}
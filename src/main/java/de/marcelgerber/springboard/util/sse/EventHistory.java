@@ -0,0 +1,105 @@
+package de.marcelgerber.springboard.util.sse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ring buffer of the latest events of a game, used to replay missed events to reconnecting subscribers.
+ * Not thread-safe, callers synchronize on the instance
+ */
+public class EventHistory {
+
+    private final ServerSentEvent[] events;
+    private int next = 0;
+    private int size = 0;
+
+    private long lastUpdated = System.nanoTime();
+    private boolean retired = false;
+
+    public EventHistory(int capacity) {
+        this.events = new ServerSentEvent[capacity];
+    }
+
+    /**
+     * Records an event, the oldest event gets overwritten when the buffer is full
+     *
+     * @param event ServerSentEvent
+     */
+    public void record(ServerSentEvent event) {
+        lastUpdated = System.nanoTime();
+        if(events.length == 0) return;
+
+        if(size < events.length) size++;
+
+        events[next] = event;
+        next = (next + 1) % events.length;
+    }
+
+    /**
+     * Returns all events after the event with 'lastEventId'. If some of them are not in the buffer, because they
+     * have been overwritten or were published before the history has been created (e.g. before a restart),
+     * only a FEN event of the latest position is returned, so the client can resync from it. Without a FEN
+     * event (e.g. in the lobby) a reset event with the latest id is returned, so the client reloads its state
+     *
+     * @param lastEventId id of the last event the client has received
+     * @return List of ServerSentEvents
+     */
+    public List<ServerSentEvent> since(long lastEventId) {
+        List<ServerSentEvent> missed = new ArrayList<>();
+        int first = (next - size + events.length) % Math.max(events.length, 1);
+        long latestId = lastEventId;
+        long oldestId = Long.MAX_VALUE;
+
+        for(int i = 0; i < size; i++) {
+            ServerSentEvent event = events[(first + i) % events.length];
+            if(event.getId() > lastEventId) missed.add(event);
+            latestId = Math.max(latestId, event.getId());
+            oldestId = Math.min(oldestId, event.getId());
+        }
+        // Events of other instances may have been recorded out of order
+        missed.sort(Comparator.comparingLong(ServerSentEvent::getId));
+
+        // Ids follow each other without gaps, so nothing is missing if the event after 'lastEventId' and
+        // every id up to the latest one are kept. An empty history cannot tell what the client has missed
+        boolean complete = size > 0 && oldestId <= lastEventId + 1 && missed.size() >= latestId - lastEventId;
+        if(complete) return missed;
+
+        for(int i = size - 1; i >= 0; i--) {
+            ServerSentEvent event = events[(first + i) % events.length];
+            if(event.getFen() != null) {
+                return event.getId() > lastEventId ? List.of(event.toFenEvent()) : List.of();
+            }
+        }
+
+        String gameId = size > 0 ? events[first].getGameId() : null;
+        return List.of(new ServerSentEvent(gameId, ServerSentEvent.RESET, latestId, "reset", null));
+    }
+
+    /**
+     * Returns 'true' if no event has been recorded for 'idleNanos'
+     *
+     * @param idleNanos long
+     * @return boolean
+     */
+    public boolean isIdle(long idleNanos) {
+        return System.nanoTime() - lastUpdated > idleNanos;
+    }
+
+    /**
+     * Returns 'true' if the history has been removed from the registry and must not be used anymore
+     *
+     * @return boolean
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Marks the history as removed from the registry
+     */
+    public void retire() {
+        retired = true;
+    }
+
+}
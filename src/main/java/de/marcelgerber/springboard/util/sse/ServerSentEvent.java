@@ -0,0 +1,193 @@
+package de.marcelgerber.springboard.util.sse;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class representing a single Server-Sent-Event of a game. The event is encoded once
+ * and the same frame is written to all subscribers
+ */
+@Getter
+public class ServerSentEvent {
+
+    public static final String MOVE = "move";
+    public static final String JOIN = "join";
+    public static final String FEN = "fen";
+    public static final String MOVES = "moves";
+    public static final String STREAM = "stream";
+
+    // Events of the lobby
+    public static final String CREATED = "created";
+    public static final String JOINED = "joined";
+    public static final String FINISHED = "finished";
+
+    // Sent instead of missed events that are no longer kept and cannot be replaced by a FEN event.
+    // The client has to reload its state
+    public static final String RESET = "reset";
+
+    // Comment without an event name, ignored by clients but keeps proxies from closing idle connections
+    public static final ServerSentEvent HEARTBEAT = new ServerSentEvent(null, 0, "heartbeat", null);
+
+    // Game the event belongs to, null for events that do not belong to a game
+    private final String gameId;
+    private final String name;
+
+    // Ply of the game after the event, so ids of a game increase monotonically
+    private final long id;
+    private final String data;
+
+    // FEN-String after a move event, null for all other events
+    private final String fen;
+
+    // Encoded on first use, never modified afterward
+    @Getter(AccessLevel.NONE)
+    private volatile byte[] frame;
+
+    // Encoded on first use for subscribers following several games
+    @Getter(AccessLevel.NONE)
+    private volatile byte[] taggedFrame;
+
+    // Encoded on first use for WebSocket subscribers
+    @Getter(AccessLevel.NONE)
+    private volatile String compactFrame;
+
+    public ServerSentEvent(String name, long id, String data, String fen) {
+        this(null, name, id, data, fen);
+    }
+
+    public ServerSentEvent(String gameId, String name, long id, String data, String fen) {
+        this.gameId = gameId;
+        this.name = name;
+        this.id = id;
+        this.data = data;
+        this.fen = fen;
+    }
+
+    /**
+     * Returns 'true' if this is a move event
+     *
+     * @return boolean
+     */
+    public boolean isMove() {
+        return MOVE.equals(name);
+    }
+
+    /**
+     * Creates a FEN event carrying the position after this move event
+     *
+     * @return ServerSentEvent
+     */
+    public ServerSentEvent toFenEvent() {
+        return new ServerSentEvent(gameId, FEN, id, fen, fen);
+    }
+
+    /**
+     * Merges consecutive move events of a game into one 'moves' event with the id and FEN-String of the last move.
+     * The data is a JSON object: {"moves":["e2e4","e7e5"],"fen":"..."}
+     *
+     * @param moves List of move events
+     * @return ServerSentEvent
+     */
+    public static ServerSentEvent merge(List<ServerSentEvent> moves) {
+        ServerSentEvent last = moves.getLast();
+
+        StringBuilder data = new StringBuilder("{\"moves\":[");
+        for(int i = 0; i < moves.size(); i++) {
+            if(i > 0) data.append(',');
+            data.append('"').append(escape(moves.get(i).getData())).append('"');
+        }
+        data.append("],\"fen\":\"").append(escape(last.getFen())).append("\"}");
+
+        return new ServerSentEvent(last.getGameId(), MOVES, last.getId(), data.toString(), last.getFen());
+    }
+
+    /**
+     * Returns the encoded event in the format of the text/event-stream. The returned array is shared
+     * between all subscribers and must not be modified
+     *
+     * @return byte[]
+     */
+    public byte[] getFrame() {
+        byte[] encoded = frame;
+        if(encoded == null) {
+            encoded = encode(data, true);
+            frame = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the encoded event for subscribers following several games. The data is wrapped into a JSON object
+     * together with the game and the event id: {"gameId":"...","id":1,"data":"..."}
+     *
+     * @return byte[]
+     */
+    public byte[] getTaggedFrame() {
+        if(gameId == null) return getFrame();
+
+        byte[] encoded = taggedFrame;
+        if(encoded == null) {
+            String tagged = "{\"gameId\":\"" + escape(gameId) + "\",\"id\":" + id
+                    + ",\"data\":\"" + escape(data) + "\"}";
+            // Event ids are only unique per game, so they are not used as ids of the stream
+            encoded = encode(tagged, false);
+            taggedFrame = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the event as a single line for WebSocket subscribers: '{name} {gameId} {id} {data}'
+     *
+     * @return String
+     */
+    public String getCompactFrame() {
+        String encoded = compactFrame;
+        if(encoded == null) {
+            encoded = name + " " + (gameId != null ? gameId : "-") + " " + id + " " + data;
+            compactFrame = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes the event with the provided data. Every line of the data gets its own 'data:' field,
+     * events without a name are comments
+     *
+     * @param data String
+     * @param withId 'true' if the 'id:' field is written
+     * @return byte[]
+     */
+    private byte[] encode(String data, boolean withId) {
+        if(name == null) return (":" + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder builder = new StringBuilder();
+        if(withId) builder.append("id:").append(id).append('\n');
+        builder.append("event:").append(name).append('\n');
+        for(String line : data.split("\n", -1)) {
+            builder.append("data:").append(line).append('\n');
+        }
+        builder.append('\n');
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escapes a String for the use inside a JSON String
+     *
+     * @param value String
+     * @return String
+     */
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for(char c : value.toCharArray()) {
+            if(c == '"' || c == '\\') builder.append('\\').append(c);
+            else if(c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+            else builder.append(c);
+        }
+        return builder.toString();
+    }
+
+}
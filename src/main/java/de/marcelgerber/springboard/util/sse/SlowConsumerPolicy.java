@@ -0,0 +1,13 @@
+package de.marcelgerber.springboard.util.sse;
+
+/**
+ * Enum containing what happens when the outbound queue of a subscriber is full
+ */
+public enum SlowConsumerPolicy {
+    // Drop the new event
+    DROP,
+    // Replace all queued move events with a single event carrying the latest FEN-String
+    COALESCE,
+    // Close the connection, the client has to reconnect and resync
+    DISCONNECT
+}
@@ -0,0 +1,47 @@
+package de.marcelgerber.springboard.util.sse;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Class representing a subscriber of Server-Sent-Events
+ */
+public class SseSubscriber extends Subscriber {
+
+    @Getter
+    private final SseEmitter emitter;
+
+    // Subscribers following several games receive the frames tagged with the gameId
+    private final boolean tagged;
+
+    public SseSubscriber(SseEmitter emitter, Executor dispatcher, int capacity, SlowConsumerPolicy policy,
+                         boolean tagged, boolean mergeMoves) {
+        super(dispatcher, capacity, policy, mergeMoves);
+        this.emitter = emitter;
+        this.tagged = tagged;
+    }
+
+    @Override
+    protected void write(ServerSentEvent event) throws IOException {
+        // The pre-encoded frame is written as it is, without running the message conversion again
+        byte[] frame = tagged ? event.getTaggedFrame() : event.getFrame();
+        emitter.send(Set.of(new ResponseBodyEmitter.DataWithMediaType(frame, MediaType.TEXT_EVENT_STREAM)));
+    }
+
+    @Override
+    protected void complete() {
+        emitter.complete();
+    }
+
+    @Override
+    protected void completeWithError(Exception e) {
+        emitter.completeWithError(e);
+    }
+
+}
@@ -0,0 +1,196 @@
+package de.marcelgerber.springboard.util.sse;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Class representing a subscriber of game events. Events are put into a bounded queue
+ * and written by the dispatcher, so publishing never blocks on a slow connection
+ */
+public abstract class Subscriber {
+
+    private final Executor dispatcher;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+
+    // Consecutive queued moves of a game are sent as one 'moves' event
+    private final boolean mergeMoves;
+
+    // Guarded by 'this'
+    private final Deque<ServerSentEvent> queue = new ArrayDeque<>();
+    private boolean draining = false;
+    private boolean closed = false;
+
+    private volatile Runnable writeFailureListener = () -> { };
+
+    protected Subscriber(Executor dispatcher, int capacity, SlowConsumerPolicy policy, boolean mergeMoves) {
+        this.dispatcher = dispatcher;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.mergeMoves = mergeMoves;
+    }
+
+    /**
+     * Writes a single event to the connection. Runs on the dispatcher, never concurrently
+     *
+     * @param event ServerSentEvent
+     * @throws IOException if the connection has been closed
+     */
+    protected abstract void write(ServerSentEvent event) throws IOException;
+
+    /**
+     * Completes the connection after the subscriber has been closed
+     */
+    protected abstract void complete();
+
+    /**
+     * Completes the connection after a failed write
+     *
+     * @param e Exception of the write
+     */
+    protected abstract void completeWithError(Exception e);
+
+    /**
+     * Sets a listener called on the dispatcher when a write fails
+     *
+     * @param listener Runnable
+     */
+    public void onWriteFailure(Runnable listener) {
+        this.writeFailureListener = listener;
+    }
+
+    /**
+     * Queues an event for this subscriber without blocking
+     *
+     * @param event ServerSentEvent
+     */
+    public void enqueue(ServerSentEvent event) {
+        synchronized(this) {
+            if(closed) return;
+
+            if(queue.size() < capacity) {
+                queue.add(event);
+            }
+            else {
+                switch(policy) {
+                    case DROP -> {
+                        return;
+                    }
+                    case COALESCE -> {
+                        // Without positions to merge the client has to reconnect and resync via Last-Event-ID
+                        if(!coalesce(event)) disconnect();
+                    }
+                    case DISCONNECT -> disconnect();
+                }
+            }
+
+            if(draining) return;
+            draining = true;
+        }
+        dispatcher.execute(this::drain);
+    }
+
+    /**
+     * Queues a heartbeat, unless events are waiting to be written anyway. A failing write closes the subscriber
+     */
+    public void heartbeat() {
+        synchronized(this) {
+            if(closed || draining || !queue.isEmpty()) return;
+
+            queue.add(ServerSentEvent.HEARTBEAT);
+            draining = true;
+        }
+        dispatcher.execute(this::drain);
+    }
+
+    /**
+     * Replaces all queued move events with a single FEN event of the latest move per game.
+     * Returns 'false' if there are no move events to merge
+     *
+     * @param event ServerSentEvent that did not fit into the queue
+     * @return boolean
+     */
+    private boolean coalesce(ServerSentEvent event) {
+        Map<String, ServerSentEvent> latestByGame = new LinkedHashMap<>();
+        queue.forEach(queued -> {
+            if(queued.getFen() != null) latestByGame.put(queued.getGameId(), queued);
+        });
+        if(event.getFen() != null) latestByGame.put(event.getGameId(), event);
+        if(latestByGame.isEmpty()) return false;
+
+        queue.removeIf(queued -> queued.getFen() != null);
+
+        if(event.getFen() == null) queue.add(event);
+        latestByGame.values().forEach(latest -> queue.add(latest.toFenEvent()));
+        return true;
+    }
+
+    /**
+     * Merges the move with all directly following queued moves of the same game into one 'moves' event.
+     * Must be called while holding the lock
+     *
+     * @param first move event taken from the queue
+     * @return ServerSentEvent
+     */
+    private ServerSentEvent mergeQueuedMoves(ServerSentEvent first) {
+        List<ServerSentEvent> moves = new ArrayList<>();
+        moves.add(first);
+
+        while(queue.peek() != null && queue.peek().isMove()
+                && Objects.equals(queue.peek().getGameId(), first.getGameId())) {
+            moves.add(queue.poll());
+        }
+        return moves.size() == 1 ? first : ServerSentEvent.merge(moves);
+    }
+
+    /**
+     * Discards the queued events and completes the connection. Must be called while holding the lock
+     */
+    private void disconnect() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * Writes all queued events. Runs on the dispatcher
+     */
+    private void drain() {
+        while(true) {
+            ServerSentEvent event;
+
+            synchronized(this) {
+                if(closed) {
+                    complete();
+                    return;
+                }
+                event = queue.poll();
+                if(event == null) {
+                    draining = false;
+                    return;
+                }
+                if(mergeMoves && event.isMove()) event = mergeQueuedMoves(event);
+            }
+
+            try {
+                write(event);
+            } catch(IOException | IllegalStateException e) {
+                // We don't know when the connection is closed on the client's side. When we want to send a
+                // message to the client and get an error, we know that the connection has been closed client side
+                close();
+                writeFailureListener.run();
+                completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the subscriber, queued events are discarded
+     */
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+}
@@ -0,0 +1,59 @@
+package de.marcelgerber.springboard.util.sse;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Class representing a subscriber receiving game events over a WebSocket. Events are sent as compact
+ * text frames, heartbeats as ping frames
+ */
+public class WebSocketSubscriber extends Subscriber {
+
+    // Thread-safe session, replies to commands are sent concurrently to the events
+    private final WebSocketSession session;
+
+    public WebSocketSubscriber(WebSocketSession session, Executor dispatcher, int capacity, SlowConsumerPolicy policy) {
+        super(dispatcher, capacity, policy, false);
+        this.session = session;
+    }
+
+    @Override
+    protected void write(ServerSentEvent event) throws IOException {
+        try {
+            if(event.getName() == null) session.sendMessage(new PingMessage());
+            else session.sendMessage(new TextMessage(event.getCompactFrame()));
+        } catch(SessionLimitExceededException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    protected void complete() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    protected void completeWithError(Exception e) {
+        close(CloseStatus.SERVER_ERROR);
+    }
+
+    /**
+     * Closes the session, failures are ignored because the connection is gone anyway
+     *
+     * @param status CloseStatus
+     */
+    private void close(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch(IOException e) {
+            // Connection already closed
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package de.marcelgerber.springboard.cache;
+
+import de.marcelgerber.springboard.util.cache.ExpiringCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTests {
+
+    @Test
+    public void expiresEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        long now = System.currentTimeMillis();
+
+        cache.put("valid", "a", now + 60000);
+        cache.put("expired", "b", now - 1);
+
+        assertEquals("a", cache.get("valid"), "expiresEntries Test failed!");
+        assertNull(cache.get("expired"), "expiresEntries Test failed!");
+    }
+
+    @Test
+    public void staysWithinMaximumSize() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100);
+        long expiresAt = System.currentTimeMillis() + 60000;
+
+        for(int i = 0; i < 1000; i++) cache.put(i, i, expiresAt);
+
+        assertTrue(cache.size() <= 100, "staysWithinMaximumSize Test failed!");
+        assertEquals(999, cache.get(999), "staysWithinMaximumSize Test failed!");
+    }
+
+}
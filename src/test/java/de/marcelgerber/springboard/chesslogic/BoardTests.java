@@ -1,10 +1,15 @@
 package de.marcelgerber.springboard.chesslogic;
 
 import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+import de.marcelgerber.springboard.util.chesslogic.MoveListCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class BoardTests {
 
@@ -36,4 +41,69 @@ public class BoardTests {
         }
     }
 
+    @Test
+    public void binaryRoundTrip() {
+        Board decoded = new Board();
+
+        for(String fen : FEN_STRINGS) {
+            board.setFen(fen);
+            decoded.setBinary(board.toBinary());
+            assertEquals(fen, decoded.getFen(), "binaryRoundTrip Test failed!");
+            assertEquals(board.getHash(), decoded.getHash(), "binaryRoundTrip Test failed! FEN: " + fen);
+        }
+    }
+
+    @Test
+    public void hashChangesWithMoves() {
+        for(String fen : FEN_STRINGS) {
+            board.setFen(fen);
+            long hash = board.getHash();
+
+            for(Move move : board.getLegalMoves()) {
+                board.makeMove(move);
+                assertNotEquals(hash, board.getHash(), "hashChangesWithMoves Test failed! FEN: " + fen);
+                board.unmakeMove(move);
+                assertEquals(hash, board.getHash(), "hashChangesWithMoves Test failed! FEN: " + fen);
+            }
+        }
+    }
+
+    @Test
+    public void encodeAndDecodeMoves() {
+        for(String fen : FEN_STRINGS) {
+            board.setFen(fen);
+
+            for(Move move : board.getLegalMoves()) {
+                assertEquals(move, Move.decode(move.encode()), "encodeAndDecodeMoves Test failed! FEN: " + fen);
+            }
+        }
+    }
+
+    @Test
+    public void encodeAndDecodeMoveLists() {
+        List<Move> moves = new ArrayList<>();
+        board.setStandardPosition();
+
+        for(String sMove : new String[] { "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1" }) {
+            Move move = board.findLegalMove(sMove);
+            board.makeMove(move);
+            moves.add(move);
+        }
+        assertEquals(moves, MoveListCodec.decode(MoveListCodec.encode(moves)), "encodeAndDecodeMoveLists Test failed!");
+    }
+
+    @Test
+    public void detectCheckAndInsufficientMaterial() {
+        board.setFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        assertTrue(board.isInCheck(), "detectCheckAndInsufficientMaterial Test failed!");
+        assertTrue(board.getLegalMoves().isEmpty(), "detectCheckAndInsufficientMaterial Test failed!");
+
+        board.setFen("8/8/4k3/8/8/3NK3/8/8 b - - 0 1");
+        assertFalse(board.isInCheck(), "detectCheckAndInsufficientMaterial Test failed!");
+        assertTrue(board.hasInsufficientMaterial(), "detectCheckAndInsufficientMaterial Test failed!");
+
+        board.setFen("8/8/4k3/8/8/3NK3/3P4/8 b - - 0 1");
+        assertFalse(board.hasInsufficientMaterial(), "detectCheckAndInsufficientMaterial Test failed!");
+    }
+
 }
@@ -0,0 +1,50 @@
+package de.marcelgerber.springboard.jfr;
+
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.model.Player;
+import de.marcelgerber.springboard.util.chesslogic.Color;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventTests {
+
+    @Test
+    public void recordsMoveValidation(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("moves.jfr");
+
+        try(Recording recording = new Recording()) {
+            recording.enable("de.marcelgerber.springboard.MoveValidation");
+            recording.enable("de.marcelgerber.springboard.Fen");
+            recording.start();
+
+            Game game = new Game(Color.WHITE, new Player("white", "123"));
+            game.initializeBoard();
+            game.playMove("e2e4");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent validation = events.stream()
+                .filter(event -> event.getEventType().getName().equals("de.marcelgerber.springboard.MoveValidation"))
+                .findFirst().orElseThrow();
+
+        assertEquals("e2e4", validation.getString("move"), "recordsMoveValidation Test failed!");
+        assertEquals(20, validation.getInt("legalMoveCount"), "recordsMoveValidation Test failed!");
+        assertTrue(validation.getBoolean("legal"), "recordsMoveValidation Test failed!");
+        assertTrue(events.stream()
+                        .filter(event -> event.getEventType().getName().equals("de.marcelgerber.springboard.Fen"))
+                        .anyMatch(event -> "serialize".equals(event.getString("operation"))),
+                "recordsMoveValidation Test failed!");
+    }
+
+}
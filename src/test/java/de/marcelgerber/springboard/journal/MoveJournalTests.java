@@ -0,0 +1,55 @@
+package de.marcelgerber.springboard.journal;
+
+import de.marcelgerber.springboard.util.journal.MoveJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveJournalTests {
+
+    private static final String GAME_ID = "679ea90e043bb37534b91b2e";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void unflushedEntriesSurviveReopening() throws IOException {
+        Path path = directory.resolve("moves.journal");
+
+        try(MoveJournal journal = new MoveJournal(path, 4096)) {
+            MoveJournal.Entry first = journal.append(GAME_ID, 1, (short) 796);
+            journal.append(GAME_ID, 2, (short) 2292);
+            journal.checkpoint(first.endOffset());
+        }
+
+        try(MoveJournal journal = new MoveJournal(path, 4096)) {
+            List<MoveJournal.Entry> unflushed = journal.readUnflushed();
+            assertEquals(1, unflushed.size(), "unflushedEntriesSurviveReopening Test failed!");
+            assertEquals(2, unflushed.getFirst().ply(), "unflushedEntriesSurviveReopening Test failed!");
+            assertEquals((short) 2292, unflushed.getFirst().encodedMove(), "unflushedEntriesSurviveReopening Test failed!");
+        }
+    }
+
+    @Test
+    public void wrapsAroundOnlyWhenFlushed() throws IOException {
+        try(MoveJournal journal = new MoveJournal(directory.resolve("moves.journal"), 128)) {
+            MoveJournal.Entry last = null;
+
+            for(int ply = 1; ply <= 3; ply++) {
+                last = journal.append(GAME_ID, ply, (short) ply);
+                assertNotNull(last, "wrapsAroundOnlyWhenFlushed Test failed!");
+            }
+            assertNull(journal.append(GAME_ID, 4, (short) 4), "wrapsAroundOnlyWhenFlushed Test failed!");
+
+            journal.checkpoint(last.endOffset());
+            assertNotNull(journal.append(GAME_ID, 4, (short) 4), "wrapsAroundOnlyWhenFlushed Test failed!");
+            assertEquals(1, journal.readUnflushed().size(), "wrapsAroundOnlyWhenFlushed Test failed!");
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package de.marcelgerber.springboard.jwt;
+
+import de.marcelgerber.springboard.util.jwt.JwtUtil;
+import de.marcelgerber.springboard.util.jwt.KeyRing;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTests {
+
+    private static final String PLAYER_ID = "6733c6c89fe0365287f71878";
+
+    private static final SecretKey OLD_KEY = Jwts.SIG.HS512.key().build();
+    private static final SecretKey NEW_KEY = Jwts.SIG.HS512.key().build();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void verifiesTokenOnce() {
+        JwtUtil jwtUtil = new JwtUtil(KeyRing.random(), meterRegistry);
+        String token = jwtUtil.generateToken(PLAYER_ID);
+
+        Claims claims = jwtUtil.getClaims(token);
+        assertEquals(PLAYER_ID, claims.getSubject(), "verifiesTokenOnce Test failed!");
+        assertNotNull(claims.getId(), "verifiesTokenOnce Test failed!");
+        assertSame(claims, jwtUtil.getClaims(token), "verifiesTokenOnce Test failed!");
+    }
+
+    @Test
+    public void rejectsModifiedToken() {
+        JwtUtil jwtUtil = new JwtUtil(KeyRing.random(), meterRegistry);
+        String token = jwtUtil.generateToken(PLAYER_ID);
+        String modified = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.getClaims(modified), "rejectsModifiedToken Test failed!");
+    }
+
+    @Test
+    public void acceptsTokensOfPreviousKey() {
+        JwtUtil jwtUtil = new JwtUtil(new KeyRing(Map.of("old", OLD_KEY), "old"), meterRegistry);
+        String oldToken = jwtUtil.generateToken(PLAYER_ID);
+
+        jwtUtil.setKeyRing(new KeyRing(Map.of("old", OLD_KEY, "new", NEW_KEY), "new"));
+        String newToken = jwtUtil.generateToken(PLAYER_ID);
+
+        // Another instance which already dropped the cache of verified tokens
+        JwtUtil otherInstance = new JwtUtil(new KeyRing(Map.of("old", OLD_KEY, "new", NEW_KEY), "new"), meterRegistry);
+        assertEquals(PLAYER_ID, otherInstance.getSubject(oldToken), "acceptsTokensOfPreviousKey Test failed!");
+        assertEquals(PLAYER_ID, otherInstance.getSubject(newToken), "acceptsTokensOfPreviousKey Test failed!");
+
+        // Tokens of a removed key are rejected, even if they have been verified before
+        jwtUtil.setKeyRing(new KeyRing(Map.of("new", NEW_KEY), "new"));
+        assertThrows(JwtException.class, () -> jwtUtil.getClaims(oldToken), "acceptsTokensOfPreviousKey Test failed!");
+        assertEquals(PLAYER_ID, jwtUtil.getSubject(newToken), "acceptsTokensOfPreviousKey Test failed!");
+    }
+
+    @Test
+    public void loadsKeyStore(@TempDir Path directory) throws Exception {
+        char[] password = "changeit".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, password);
+        keyStore.setEntry("2026-09", new KeyStore.SecretKeyEntry(OLD_KEY), new KeyStore.PasswordProtection(password));
+        keyStore.setEntry("2026-10", new KeyStore.SecretKeyEntry(NEW_KEY), new KeyStore.PasswordProtection(password));
+
+        Path path = directory.resolve("jwt.p12");
+        try(OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, password);
+        }
+
+        JwtUtil jwtUtil = new JwtUtil(path.toString(), "changeit", "2026-09", 120000, meterRegistry);
+        String token = jwtUtil.generateToken(PLAYER_ID);
+
+        KeyRing keyRing = KeyRing.load(path, password, "2026-10", Duration.ofMinutes(2));
+        assertEquals("2026-10", keyRing.getActiveKeyId(), "loadsKeyStore Test failed!");
+        assertEquals(PLAYER_ID, new JwtUtil(keyRing, meterRegistry).getSubject(token), "loadsKeyStore Test failed!");
+    }
+
+    @Test
+    public void activatesNewKeyAfterDelay() {
+        Instant now = Instant.now();
+        Map<String, SecretKey> keys = Map.of("old", OLD_KEY, "new", NEW_KEY);
+
+        // A new key only verifies tokens until every instance has loaded it
+        KeyRing published = new KeyRing(keys, Map.of("old", now.minus(Duration.ofDays(30)),
+                "new", now.plus(Duration.ofMinutes(2))));
+        assertEquals("old", published.getActiveKeyId(), "activatesNewKeyAfterDelay Test failed!");
+
+        KeyRing activated = new KeyRing(keys, Map.of("old", now.minus(Duration.ofDays(30)),
+                "new", now.minusSeconds(1)));
+        assertEquals("new", activated.getActiveKeyId(), "activatesNewKeyAfterDelay Test failed!");
+
+        // A new keystore signs with its first key right away
+        KeyRing fresh = new KeyRing(keys, Map.of("old", now.plus(Duration.ofMinutes(1)),
+                "new", now.plus(Duration.ofMinutes(2))));
+        assertEquals("old", fresh.getActiveKeyId(), "activatesNewKeyAfterDelay Test failed!");
+    }
+
+}
@@ -0,0 +1,99 @@
+package de.marcelgerber.springboard.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of latencies in microseconds with a relative error below 2 %. Values below 128 µs
+ * get a bucket each, larger values share 64 buckets per power of two
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKETS = 64;
+
+    // Enough buckets for values up to 2^40 µs
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS + 34 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency measured with System.nanoTime()
+     *
+     * @param nanos long
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(Math.min(bucketOf(micros), counts.length() - 1));
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values
+     *
+     * @return long
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the largest recorded value in microseconds
+     *
+     * @return long
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value in microseconds below which 'percentile' percent of the recorded values are
+     *
+     * @param percentile double between 0 and 100
+     * @return long
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if(total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for(int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if(seen >= Math.max(rank, 1)) return Math.min(upperBoundOf(bucket), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the bucket of a value
+     *
+     * @param micros long
+     * @return int
+     */
+    private static int bucketOf(long micros) {
+        if(micros < LINEAR_BUCKETS) return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >> (exponent - 6)) & (SUB_BUCKETS - 1));
+        return LINEAR_BUCKETS + (exponent - 7) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value of a bucket
+     *
+     * @param bucket int
+     * @return long
+     */
+    private static long upperBoundOf(int bucket) {
+        if(bucket < LINEAR_BUCKETS) return bucket;
+
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 7;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long lower = (1L << exponent) + ((long) subBucket << (exponent - 6));
+        return lower + (1L << (exponent - 6)) - 1;
+    }
+
+}
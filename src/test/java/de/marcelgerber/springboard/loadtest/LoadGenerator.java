@@ -0,0 +1,419 @@
+package de.marcelgerber.springboard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.marcelgerber.springboard.util.chesslogic.Board;
+import de.marcelgerber.springboard.util.chesslogic.Move;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Load generator playing many games at once against a running SpringBoard instance. Every game is played by
+ * two players with random legal moves chosen on a local Board, while spectators follow it over SSE.
+ * Throughput and latency percentiles are printed periodically and at the end. <br />
+ * Run with 'mvn -Ploadtest verify', see the README for the options
+ */
+public class LoadGenerator {
+
+    /**
+     * A player of a pair. The cookie is replaced when the player logs in again. Every pair has its own address,
+     * sent as X-Forwarded-For, so the limits per IP address apply as if the players were separate clients
+     */
+    private static class Player {
+        private final String username;
+        private final String address;
+        private String id;
+        private String cookie;
+
+        private Player(String username, String address) {
+            this.username = username;
+            this.address = address;
+        }
+    }
+
+    // A pair gives up after 10 failed games in a row, waiting 100 ms after the first failure and up to 5 s
+    private static final int MAX_FAILURES = 10;
+    private static final long MIN_BACKOFF = 100;
+    private static final long MAX_BACKOFF = 5000;
+
+    /**
+     * A game being played, spectators look up when the moves have been sent
+     */
+    private static class GameRun {
+        private final String id;
+        private final ConcurrentHashMap<Long, Long> sentAt = new ConcurrentHashMap<>();
+        private final List<Stream<String>> spectators = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private GameRun(String id) {
+            this.id = id;
+        }
+    }
+
+    private final URI baseUri;
+    private final int games;
+    private final int spectatorsPerGame;
+    private final Duration duration;
+    private final Duration rampUp;
+    private final long thinkTime;
+    private final long maxP99;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LatencyHistogram eventLatency = new LatencyHistogram();
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    private final LongAdder finishedGames = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private volatile long deadline;
+
+    public LoadGenerator(URI baseUri, int games, int spectatorsPerGame, Duration duration, Duration rampUp,
+                         long thinkTime, long maxP99) {
+        this.baseUri = baseUri;
+        this.games = games;
+        this.spectatorsPerGame = spectatorsPerGame;
+        this.duration = duration;
+        this.rampUp = rampUp;
+        this.thinkTime = thinkTime;
+        this.maxP99 = maxP99;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator(
+                URI.create(System.getProperty("loadtest.url", "http://localhost:8080")),
+                Integer.getInteger("loadtest.games", 100),
+                Integer.getInteger("loadtest.spectators", 1),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 60L)),
+                Duration.ofSeconds(Long.getLong("loadtest.ramp-up", 10L)),
+                Long.getLong("loadtest.think-time", 0L),
+                Long.getLong("loadtest.max-p99", 0L));
+
+        if(!generator.run()) throw new IllegalStateException("Move latency p99 exceeded loadtest.max-p99");
+    }
+
+    /**
+     * Plays games until the duration has passed and prints the results
+     *
+     * @return 'false' if the p99 of the move latency exceeded 'maxP99' ms
+     */
+    public boolean run() throws InterruptedException {
+        System.out.printf("Playing %d games with %d spectators each against %s for %s%n",
+                games, spectatorsPerGame, baseUri, duration);
+
+        long start = System.nanoTime();
+        deadline = start + rampUp.toNanos() + duration.toNanos();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("loadtest-report").daemon().factory());
+        reporter.scheduleAtFixedRate(new Reporter(start), 5, 5, TimeUnit.SECONDS);
+
+        try(ExecutorService pairs = Executors.newVirtualThreadPerTaskExecutor()) {
+            for(int i = 0; i < games; i++) {
+                int pair = i;
+                long delay = games > 1 ? rampUp.toNanos() * i / games : 0;
+                pairs.execute(() -> {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                        playPair(pair);
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch(Exception e) {
+                        System.err.println("Pair " + pair + " stopped: " + e);
+                    }
+                });
+            }
+        }
+
+        reporter.shutdownNow();
+        printSummary(System.nanoTime() - start);
+        return maxP99 <= 0 || moveLatency.getPercentile(99) <= maxP99 * 1000;
+    }
+
+    /**
+     * Signs up and logs in two players, who play one game after another until the deadline. A failed game
+     * is retried after a growing delay, the pair gives up after 'MAX_FAILURES' failed games in a row
+     *
+     * @param pair number of the pair
+     */
+    private void playPair(int pair) throws IOException, InterruptedException {
+        String address = "10." + (pair >> 16 & 0xFF) + "." + (pair >> 8 & 0xFF) + "." + (pair & 0xFF);
+        Player white = new Player("load-" + runId + "-" + pair + "-w", address);
+        Player black = new Player("load-" + runId + "-" + pair + "-b", address);
+        signup(white);
+        signup(black);
+
+        int failures = 0;
+        while(System.nanoTime() < deadline) {
+            if(playGame(white, black)) {
+                failures = 0;
+                continue;
+            }
+
+            if(++failures >= MAX_FAILURES) throw new IOException(failures + " failed games in a row");
+            Thread.sleep(Math.min(MAX_BACKOFF, MIN_BACKOFF << (failures - 1)));
+        }
+    }
+
+    /**
+     * Creates and joins a game, which is followed by the spectators and played until it has ended
+     *
+     * @param white Player
+     * @param black Player
+     * @return 'false' if a request failed
+     */
+    private boolean playGame(Player white, Player black) throws IOException, InterruptedException {
+        JsonNode game = send(white, "POST", "/api/games", "{\"color\":\"white\"}");
+        if(game == null) return false;
+
+        GameRun run = new GameRun(game.get("id").asText());
+        if(send(black, "PUT", "/api/games/" + run.id, null) == null) return false;
+
+        for(int i = 0; i < spectatorsPerGame; i++) spectate(run);
+        try {
+            return playMoves(run, white, black);
+        } finally {
+            run.finished.set(true);
+            run.spectators.forEach(Stream::close);
+        }
+    }
+
+    /**
+     * Plays random legal moves until the game has ended or the deadline has passed
+     *
+     * @param run GameRun
+     * @param white Player
+     * @param black Player
+     * @return 'false' if a move was not accepted
+     */
+    private boolean playMoves(GameRun run, Player white, Player black) throws IOException, InterruptedException {
+        Board board = new Board();
+        board.setStandardPosition();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long ply = 0;
+
+        while(System.nanoTime() < deadline) {
+            // Same rules as the server for the end of a game
+            List<Move> legalMoves = board.getLegalMoves();
+            if(legalMoves.isEmpty() || board.getHalfMoveCounter() >= 100 || board.hasInsufficientMaterial()) {
+                finishedGames.increment();
+                return true;
+            }
+
+            Move move = legalMoves.get(random.nextInt(legalMoves.size()));
+            Player player = ply % 2 == 0 ? white : black;
+            run.sentAt.put(ply + 1, System.nanoTime());
+
+            long start = System.nanoTime();
+            JsonNode result = send(player, "PUT", "/api/games/" + run.id + "/moves",
+                    "{\"move\":\"" + move.toPureCoordinateNotation() + "\"}");
+            if(result == null) return false;
+            moveLatency.record(System.nanoTime() - start);
+
+            board.makeMove(move);
+            ply++;
+            if(thinkTime > 0) Thread.sleep(thinkTime);
+        }
+        return true;
+    }
+
+    /**
+     * Follows the game over SSE and records the time from sending a move until its event arrives
+     *
+     * @param run GameRun
+     */
+    private void spectate(GameRun run) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/games/" + run.id + "/events"))
+                .header("Accept", "text/event-stream")
+                .GET().build();
+
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).thenAccept(response -> {
+            Stream<String> lines = response.body();
+            run.spectators.add(lines);
+
+            // The game may have ended while the connection was opened
+            if(run.finished.get()) {
+                lines.close();
+                return;
+            }
+
+            Thread.ofVirtual().start(() -> {
+                try {
+                    lines.forEach(line -> {
+                        if(!line.startsWith("id:")) return;
+                        Long sentAt = run.sentAt.get(Long.parseLong(line.substring(3).trim()));
+                        if(sentAt != null) eventLatency.record(System.nanoTime() - sentAt);
+                    });
+                } catch(RuntimeException e) {
+                    // Closed when the game has ended
+                }
+            });
+        });
+    }
+
+    /**
+     * Signs up a player and logs in
+     *
+     * @param player Player
+     */
+    private void signup(Player player) throws IOException, InterruptedException {
+        request(player, "POST", "/api/players/signup", credentials(player));
+        login(player);
+    }
+
+    /**
+     * Logs in and stores the new cookie of the player
+     *
+     * @param player Player
+     */
+    private void login(Player player) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = request(player, "POST", "/api/players/login", credentials(player));
+        loginLatency.record(System.nanoTime() - start);
+
+        player.cookie = response.headers().allValues("Set-Cookie").stream()
+                .filter(header -> header.startsWith("accessToken="))
+                .map(header -> header.substring(0, header.indexOf(';')))
+                .findFirst().orElseThrow(() -> new IOException("Login of " + player.username + " failed"));
+        player.id = objectMapper.readTree(response.body()).get("playerId").asText();
+    }
+
+    /**
+     * Returns the login credentials of the player as JSON
+     *
+     * @param player Player
+     * @return String
+     */
+    private static String credentials(Player player) {
+        return "{\"username\":\"" + player.username + "\",\"password\":\"loadtest\"}";
+    }
+
+    /**
+     * Sends an authenticated request and returns the JSON response or null if it failed. The player logs in
+     * again when the token has been rejected, e.g. because it expired during a long run
+     *
+     * @param player Player
+     * @param method String
+     * @param path String
+     * @param body JSON or null
+     * @return JsonNode or null
+     */
+    private JsonNode send(Player player, String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = request(player, method, path, body);
+        if(response.statusCode() == 401) login(player);
+        if(response.statusCode() != 200) return null;
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Sends a request. Requests rejected with 429 are repeated after the time in 'Retry-After',
+     * all other errors are counted by status code
+     *
+     * @param player Player
+     * @param method String
+     * @param path String
+     * @param body JSON or null
+     * @return HttpResponse
+     */
+    private HttpResponse<String> request(Player player, String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", player.address)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if(player.cookie != null) builder.header("Cookie", player.cookie);
+        HttpRequest request = builder.build();
+
+        while(true) {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if(response.statusCode() != 200) {
+                errors.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+            }
+            if(response.statusCode() != 429 || System.nanoTime() >= deadline) return response;
+
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+        }
+    }
+
+    /**
+     * Prints the results of the whole run
+     *
+     * @param elapsedNanos long
+     */
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nFinished after %.1f s%n", seconds);
+        System.out.printf("Moves: %d (%.1f/s), finished games: %d%n",
+                moveLatency.getCount(), moveLatency.getCount() / seconds, finishedGames.sum());
+        System.out.println("Move latency:  " + format(moveLatency));
+        System.out.println("Event latency: " + format(eventLatency));
+        System.out.println("Login latency: " + format(loginLatency));
+
+        Map<Integer, Long> errorCounts = new TreeMap<>();
+        errors.forEach((status, count) -> errorCounts.put(status, count.sum()));
+        System.out.println("Errors by status: " + errorCounts);
+    }
+
+    /**
+     * Returns the percentiles of a histogram in milliseconds
+     *
+     * @param histogram LatencyHistogram
+     * @return String
+     */
+    private static String format(LatencyHistogram histogram) {
+        return String.format("count=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                histogram.getCount(),
+                histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0,
+                histogram.getPercentile(99) / 1000.0, histogram.getPercentile(99.9) / 1000.0,
+                histogram.getMax() / 1000.0);
+    }
+
+    /**
+     * Prints the throughput since the last report and the percentiles so far
+     */
+    private class Reporter implements Runnable {
+        private final long start;
+        private long lastMoves = 0;
+        private long lastReport;
+
+        private Reporter(long start) {
+            this.start = start;
+            this.lastReport = start;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long moves = moveLatency.getCount();
+            double interval = (now - lastReport) / 1e9;
+
+            System.out.printf("[%5.0fs] %7.1f moves/s  move %s  event p99=%.2fms%n",
+                    (now - start) / 1e9, (moves - lastMoves) / interval, format(moveLatency),
+                    eventLatency.getPercentile(99) / 1000.0);
+
+            lastMoves = moves;
+            lastReport = now;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package de.marcelgerber.springboard.ratelimit;
+
+import de.marcelgerber.springboard.util.ratelimit.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTests {
+
+    @Test
+    public void limitsEveryKeySeparately() {
+        RateLimiter rateLimiter = new RateLimiter(3, 1);
+
+        for(int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire("player1"), "limitsEveryKeySeparately Test failed!");
+        }
+        assertFalse(rateLimiter.tryAcquire("player1"), "limitsEveryKeySeparately Test failed!");
+        assertTrue(rateLimiter.tryAcquire("player2"), "limitsEveryKeySeparately Test failed!");
+
+        // Neither bucket has been refilled yet
+        rateLimiter.removeFullBuckets();
+        assertEquals(2, rateLimiter.size(), "limitsEveryKeySeparately Test failed!");
+    }
+
+}
@@ -0,0 +1,52 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.repository.InMemoryRevokedTokenStore;
+import de.marcelgerber.springboard.repository.RevokedTokenStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlackListServiceTests {
+
+    @Test
+    public void revokesTokensUntilTheyExpire() {
+        BlackListService blackListService = new BlackListService(new InMemoryRevokedTokenStore(), 1000, 1000);
+        long now = System.currentTimeMillis();
+
+        blackListService.addToken("expired", new Date(now - 1000));
+        blackListService.addToken("valid", new Date(now + 3600000));
+
+        assertTrue(blackListService.contains("expired"), "revokesTokensUntilTheyExpire Test failed!");
+        assertTrue(blackListService.contains("valid"), "revokesTokensUntilTheyExpire Test failed!");
+        assertFalse(blackListService.contains("unknown"), "revokesTokensUntilTheyExpire Test failed!");
+
+        blackListService.removeExpiredTokens();
+
+        assertFalse(blackListService.contains("expired"), "revokesTokensUntilTheyExpire Test failed!");
+        assertTrue(blackListService.contains("valid"), "revokesTokensUntilTheyExpire Test failed!");
+        assertEquals(1, blackListService.size(), "revokesTokensUntilTheyExpire Test failed!");
+    }
+
+    @Test
+    public void pollsRevocationsOfOtherInstances() {
+        RevokedTokenStore sharedStore = new InMemoryRevokedTokenStore();
+        BlackListService instance1 = new BlackListService(sharedStore, 1000, 1000);
+        BlackListService instance2 = new BlackListService(sharedStore, 1000, 1000);
+        Date expiration = new Date(System.currentTimeMillis() + 3600000);
+
+        instance1.revokeToken("token1", expiration);
+        assertTrue(instance1.contains("token1"), "pollsRevocationsOfOtherInstances Test failed!");
+        assertFalse(instance2.contains("token1"), "pollsRevocationsOfOtherInstances Test failed!");
+
+        instance2.poll();
+        assertTrue(instance2.contains("token1"), "pollsRevocationsOfOtherInstances Test failed!");
+
+        instance1.revokeToken("token2", expiration);
+        instance2.poll();
+        assertTrue(instance2.contains("token2"), "pollsRevocationsOfOtherInstances Test failed!");
+        assertEquals(2, instance2.size(), "pollsRevocationsOfOtherInstances Test failed!");
+    }
+
+}
@@ -0,0 +1,45 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.util.sse.SlowConsumerPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventServiceTests {
+
+    private static final String GAME_ID = "679ea90e043bb37534b91b2e";
+    private static final String OTHER_GAME_ID = "679ea90e043bb37534b91b2f";
+
+    private final EventService eventService = new EventService(new InProcessEventBus(), 32, SlowConsumerPolicy.COALESCE, 64, 600000, 0, 0, 100);
+
+    @AfterEach
+    public void shutdown() {
+        eventService.shutdown();
+    }
+
+    @Test
+    public void countsSubscribers() {
+        eventService.createEmitter(GAME_ID);
+        eventService.createEmitter(GAME_ID);
+        eventService.createEmitter(OTHER_GAME_ID);
+
+        assertEquals(2, eventService.getSubscriberCount(GAME_ID), "countsSubscribers Test failed!");
+        assertEquals(1, eventService.getSubscriberCount(OTHER_GAME_ID), "countsSubscribers Test failed!");
+        assertEquals(0, eventService.getSubscriberCount("unknown"), "countsSubscribers Test failed!");
+        assertEquals(3, eventService.getTotalSubscriberCount(), "countsSubscribers Test failed!");
+        assertEquals(2, eventService.getSubscribedGameCount(), "countsSubscribers Test failed!");
+    }
+
+    @Test
+    public void streamFollowsChangingGames() {
+        eventService.createStream(List.of(GAME_ID), false);
+        assertEquals(1, eventService.getSubscriberCount(GAME_ID), "streamFollowsChangingGames Test failed!");
+        assertEquals(1, eventService.getStreamCount(), "streamFollowsChangingGames Test failed!");
+
+        assertFalse(eventService.updateStream("unknown", List.of(OTHER_GAME_ID)), "streamFollowsChangingGames Test failed!");
+    }
+
+}
@@ -0,0 +1,60 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.exception.BadRequestException;
+import de.marcelgerber.springboard.model.Game;
+import de.marcelgerber.springboard.model.Player;
+import de.marcelgerber.springboard.util.chesslogic.GameState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("inmemory")
+public class GameServiceTests {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Test
+    public void playGameUntilCheckmate() {
+        Player white = playerService.signupPlayer("white", "123", "127.0.0.1");
+        Player black = playerService.signupPlayer("black", "123", "127.0.0.1");
+
+        Game game = gameService.createGame(white.getId(), "white");
+        gameService.joinGame(black.getId(), game.getId());
+
+        String[] moves = { "f2f3", "e7e5", "g2g4", "d8h4" };
+        for(int i = 0; i < moves.length; i++) {
+            Player player = i % 2 == 0 ? white : black;
+            gameService.playMove(player.getId(), game.getId(), moves[i]);
+        }
+
+        Game finished = gameService.getGameById(game.getId());
+        assertEquals(GameState.WIN_BLACK, finished.getState(), "playGameUntilCheckmate Test failed!");
+        assertEquals(4, finished.getMoves().size(), "playGameUntilCheckmate Test failed!");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/8/5P2/PPPPP1PP/RNBQKBNR w KQkq - 0 2",
+                gameService.getPositionAt(game.getId(), 2).getFen(), "playGameUntilCheckmate Test failed!");
+    }
+
+    @Test
+    public void rejectsMoveOfPlayerNotToMove() {
+        Player white = playerService.signupPlayer("white2", "123", "127.0.0.1");
+        Player black = playerService.signupPlayer("black2", "123", "127.0.0.1");
+
+        Game game = gameService.createGame(white.getId(), "white");
+        gameService.joinGame(black.getId(), game.getId());
+
+        assertThrows(BadRequestException.class, () -> gameService.playMove(black.getId(), game.getId(), "e7e5"),
+                "rejectsMoveOfPlayerNotToMove Test failed!");
+        assertThrows(BadRequestException.class, () -> gameService.playMove("unknown", game.getId(), "e2e4"),
+                "rejectsMoveOfPlayerNotToMove Test failed!");
+    }
+
+}
@@ -0,0 +1,45 @@
+package de.marcelgerber.springboard.service;
+
+import de.marcelgerber.springboard.exception.BadRequestException;
+import de.marcelgerber.springboard.model.Player;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("inmemory")
+public class PlayerServiceTests {
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Test
+    public void signsUpUsernameOnlyOnce() throws Exception {
+        Callable<Player> signup = () -> playerService.signupPlayer("duplicate", "123", "127.0.0.2");
+
+        List<Future<Player>> results;
+        try(ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            results = executor.invokeAll(List.of(signup, signup));
+        }
+
+        int created = 0;
+        for(Future<Player> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch(ExecutionException e) {
+                assertInstanceOf(BadRequestException.class, e.getCause(), "signsUpUsernameOnlyOnce Test failed!");
+            }
+        }
+        assertEquals(1, created, "signsUpUsernameOnlyOnce Test failed!");
+        assertEquals("duplicate", playerService.getPlayerByUsername("duplicate").getUsername(),
+                "signsUpUsernameOnlyOnce Test failed!");
+    }
+
+}
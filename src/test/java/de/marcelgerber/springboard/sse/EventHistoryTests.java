@@ -0,0 +1,86 @@
+package de.marcelgerber.springboard.sse;
+
+import de.marcelgerber.springboard.util.sse.EventHistory;
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventHistoryTests {
+
+    private static ServerSentEvent move(int ply) {
+        return new ServerSentEvent(ServerSentEvent.MOVE, ply, "move" + ply, "fen" + ply);
+    }
+
+    @Test
+    public void replaysMissedEvents() {
+        EventHistory history = new EventHistory(4);
+        history.record(new ServerSentEvent(ServerSentEvent.JOIN, 0, "max", null));
+        history.record(move(1));
+        history.record(move(2));
+
+        List<ServerSentEvent> missed = history.since(0);
+        assertEquals(2, missed.size(), "replaysMissedEvents Test failed!");
+        assertEquals(1, missed.getFirst().getId(), "replaysMissedEvents Test failed!");
+        assertEquals(2, missed.getLast().getId(), "replaysMissedEvents Test failed!");
+        assertTrue(history.since(2).isEmpty(), "replaysMissedEvents Test failed!");
+    }
+
+    @Test
+    public void resyncsWithFenWhenEventsWereOverwritten() {
+        EventHistory history = new EventHistory(4);
+        for(int ply = 1; ply <= 10; ply++) history.record(move(ply));
+
+        assertEquals(4, history.since(6).size(), "resyncsWithFenWhenEventsWereOverwritten Test failed!");
+
+        List<ServerSentEvent> missed = history.since(2);
+        assertEquals(1, missed.size(), "resyncsWithFenWhenEventsWereOverwritten Test failed!");
+        assertEquals(ServerSentEvent.FEN, missed.getFirst().getName(), "resyncsWithFenWhenEventsWereOverwritten Test failed!");
+        assertEquals("fen10", missed.getFirst().getData(), "resyncsWithFenWhenEventsWereOverwritten Test failed!");
+    }
+
+    @Test
+    public void resetsWhenEventsWithoutFenWereOverwritten() {
+        EventHistory history = new EventHistory(4);
+        for(int id = 1; id <= 10; id++) history.record(new ServerSentEvent(ServerSentEvent.CREATED, id, "{}", null));
+
+        assertEquals(3, history.since(7).size(), "resetsWhenEventsWithoutFenWereOverwritten Test failed!");
+
+        List<ServerSentEvent> missed = history.since(2);
+        assertEquals(1, missed.size(), "resetsWhenEventsWithoutFenWereOverwritten Test failed!");
+        assertEquals(ServerSentEvent.RESET, missed.getFirst().getName(), "resetsWhenEventsWithoutFenWereOverwritten Test failed!");
+        assertEquals(10, missed.getFirst().getId(), "resetsWhenEventsWithoutFenWereOverwritten Test failed!");
+    }
+
+    @Test
+    public void replaysEventsRecordedOutOfOrder() {
+        EventHistory history = new EventHistory(4);
+        for(int id : new int[] { 3, 4, 6, 5, 7 }) history.record(new ServerSentEvent(ServerSentEvent.CREATED, id, "{}", null));
+
+        List<ServerSentEvent> missed = history.since(3);
+        assertEquals(List.of(4L, 5L, 6L, 7L), missed.stream().map(ServerSentEvent::getId).toList(),
+                "replaysEventsRecordedOutOfOrder Test failed!");
+        assertEquals(ServerSentEvent.RESET, history.since(2).getFirst().getName(),
+                "replaysEventsRecordedOutOfOrder Test failed!");
+    }
+
+    @Test
+    public void resyncsFreshHistoryReplayedWithOldEventId() {
+        // Created after a restart, the events up to ply 5 have never been recorded
+        EventHistory history = new EventHistory(64);
+        for(int ply = 6; ply <= 10; ply++) history.record(move(ply));
+
+        List<ServerSentEvent> missed = history.since(2);
+        assertEquals(1, missed.size(), "resyncsFreshHistoryReplayedWithOldEventId Test failed!");
+        assertEquals(ServerSentEvent.FEN, missed.getFirst().getName(), "resyncsFreshHistoryReplayedWithOldEventId Test failed!");
+        assertEquals("fen10", missed.getFirst().getData(), "resyncsFreshHistoryReplayedWithOldEventId Test failed!");
+        assertEquals(5, history.since(5).size(), "resyncsFreshHistoryReplayedWithOldEventId Test failed!");
+
+        EventHistory empty = new EventHistory(64);
+        assertEquals(ServerSentEvent.RESET, empty.since(5).getFirst().getName(),
+                "resyncsFreshHistoryReplayedWithOldEventId Test failed!");
+    }
+
+}
@@ -0,0 +1,51 @@
+package de.marcelgerber.springboard.sse;
+
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerSentEventTests {
+
+    @Test
+    public void encodesFrameOnce() {
+        ServerSentEvent event = new ServerSentEvent(ServerSentEvent.MOVE, 1, "e2e4",
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+
+        byte[] frame = event.getFrame();
+        assertEquals("id:1\nevent:move\ndata:e2e4\n\n", new String(frame, StandardCharsets.UTF_8), "encodesFrameOnce Test failed!");
+        assertSame(frame, event.getFrame(), "encodesFrameOnce Test failed!");
+    }
+
+    @Test
+    public void encodesEveryLineOfData() {
+        ServerSentEvent event = new ServerSentEvent(ServerSentEvent.JOIN, 0, "max\nmoritz", null);
+
+        assertEquals("id:0\nevent:join\ndata:max\ndata:moritz\n\n", new String(event.getFrame(), StandardCharsets.UTF_8),
+                "encodesEveryLineOfData Test failed!");
+    }
+
+    @Test
+    public void encodesHeartbeatAsComment() {
+        assertEquals(":heartbeat\n\n", new String(ServerSentEvent.HEARTBEAT.getFrame(), StandardCharsets.UTF_8),
+                "encodesHeartbeatAsComment Test failed!");
+    }
+
+    @Test
+    public void tagsFrameWithGame() {
+        ServerSentEvent event = new ServerSentEvent("679ea90e043bb37534b91b2e", ServerSentEvent.JOIN, 0, "m\"ax", null);
+
+        assertEquals("event:join\ndata:{\"gameId\":\"679ea90e043bb37534b91b2e\",\"id\":0,\"data\":\"m\\\"ax\"}\n\n",
+                new String(event.getTaggedFrame(), StandardCharsets.UTF_8), "tagsFrameWithGame Test failed!");
+    }
+
+    @Test
+    public void encodesCompactFrame() {
+        ServerSentEvent event = new ServerSentEvent("679ea90e043bb37534b91b2e", ServerSentEvent.MOVE, 1, "e2e4", null);
+
+        assertEquals("move 679ea90e043bb37534b91b2e 1 e2e4", event.getCompactFrame(), "encodesCompactFrame Test failed!");
+    }
+
+}
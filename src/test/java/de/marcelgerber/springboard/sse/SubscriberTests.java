@@ -0,0 +1,82 @@
+package de.marcelgerber.springboard.sse;
+
+import de.marcelgerber.springboard.util.sse.ServerSentEvent;
+import de.marcelgerber.springboard.util.sse.SlowConsumerPolicy;
+import de.marcelgerber.springboard.util.sse.Subscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubscriberTests {
+
+    private static final String GAME_ID = "679ea90e043bb37534b91b2e";
+
+    /**
+     * Subscriber recording the written events. The drain only runs when runDispatcher() is called
+     */
+    private static class RecordingSubscriber extends Subscriber {
+
+        private final List<Runnable> tasks;
+        private final List<ServerSentEvent> written = new ArrayList<>();
+
+        private RecordingSubscriber(List<Runnable> tasks, int capacity, SlowConsumerPolicy policy, boolean mergeMoves) {
+            super(tasks::add, capacity, policy, mergeMoves);
+            this.tasks = tasks;
+        }
+
+        private void runDispatcher() {
+            tasks.forEach(Runnable::run);
+            tasks.clear();
+        }
+
+        @Override
+        protected void write(ServerSentEvent event) {
+            written.add(event);
+        }
+
+        @Override
+        protected void complete() { }
+
+        @Override
+        protected void completeWithError(Exception e) { }
+
+    }
+
+    private static ServerSentEvent move(int ply, String move) {
+        return new ServerSentEvent(GAME_ID, ServerSentEvent.MOVE, ply, move, "fen" + ply);
+    }
+
+    @Test
+    public void mergesQueuedMoves() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(new ArrayList<>(), 32, SlowConsumerPolicy.COALESCE, true);
+        subscriber.enqueue(move(1, "e2e4"));
+        subscriber.enqueue(move(2, "e7e5"));
+        subscriber.enqueue(move(3, "g1f3"));
+        subscriber.runDispatcher();
+
+        assertEquals(1, subscriber.written.size(), "mergesQueuedMoves Test failed!");
+
+        ServerSentEvent merged = subscriber.written.getFirst();
+        assertEquals(ServerSentEvent.MOVES, merged.getName(), "mergesQueuedMoves Test failed!");
+        assertEquals(3, merged.getId(), "mergesQueuedMoves Test failed!");
+        assertEquals("{\"moves\":[\"e2e4\",\"e7e5\",\"g1f3\"],\"fen\":\"fen3\"}", merged.getData(),
+                "mergesQueuedMoves Test failed!");
+    }
+
+    @Test
+    public void coalescesWhenQueueIsFull() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(new ArrayList<>(), 2, SlowConsumerPolicy.COALESCE, false);
+        subscriber.enqueue(move(1, "e2e4"));
+        subscriber.enqueue(move(2, "e7e5"));
+        subscriber.enqueue(move(3, "g1f3"));
+        subscriber.runDispatcher();
+
+        assertEquals(1, subscriber.written.size(), "coalescesWhenQueueIsFull Test failed!");
+        assertEquals(ServerSentEvent.FEN, subscriber.written.getFirst().getName(), "coalescesWhenQueueIsFull Test failed!");
+        assertEquals("fen3", subscriber.written.getFirst().getData(), "coalescesWhenQueueIsFull Test failed!");
+    }
+
+}